@@ -19,8 +19,19 @@ const RNCallKeepShowIncomingCallUi = 'RNCallKeepShowIncomingCallUi';
 const RNCallKeepOnSilenceIncomingCall = 'RNCallKeepOnSilenceIncomingCall';
 const RNCallKeepOnIncomingConnectionFailed = 'RNCallKeepOnIncomingConnectionFailed';
 const RNCallKeepDidChangeAudioRoute = 'RNCallKeepDidChangeAudioRoute';
+const RNCallKeepDidReceiveEvents = 'RNCallKeepDidReceiveEvents';
+const RNCallKeepDidRecordCallMetric = 'RNCallKeepDidRecordCallMetric';
+const RNCallKeepDidChangeActiveCalls = 'RNCallKeepDidChangeActiveCalls';
+const RNCallKeepDidChangeAvailableAudioRoutes = 'RNCallKeepDidChangeAvailableAudioRoutes';
 const isIOS = Platform.OS === 'ios';
 
+if (!isIOS) {
+  // When `eventBatchingWindow` is set, Android sends events in batches: dispatch them to the regular listeners.
+  eventEmitter.addListener(RNCallKeepDidReceiveEvents, (events) => {
+    events.forEach(({ name, data }) => eventEmitter.emit(name, data));
+  });
+}
+
 const didReceiveStartCallAction = handler => {
   if (isIOS) {
     // Tell CallKeep that we are ready to receive `RNCallKeepDidReceiveStartCallAction` event and prevent delay
@@ -84,6 +95,15 @@ const silenceIncomingCall = handler =>
 const createIncomingConnectionFailed = handler =>
   eventEmitter.addListener(RNCallKeepOnIncomingConnectionFailed, (data) => handler(data));
 
+const didRecordCallMetric = handler =>
+  eventEmitter.addListener(RNCallKeepDidRecordCallMetric, (data) => handler(data));
+
+const didChangeActiveCalls = handler =>
+  eventEmitter.addListener(RNCallKeepDidChangeActiveCalls, (data) => handler(data));
+
+const didChangeAvailableAudioRoutes = handler =>
+  eventEmitter.addListener(RNCallKeepDidChangeAvailableAudioRoutes, (data) => handler(data));
+
 export const emit = (eventName, payload) => eventEmitter.emit(eventName, payload);
 
 export const listeners = {
@@ -103,4 +123,7 @@ export const listeners = {
   silenceIncomingCall,
   createIncomingConnectionFailed,
   didChangeAudioRoute,
+  didRecordCallMetric,
+  didChangeActiveCalls,
+  didChangeAvailableAudioRoutes,
 };
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.os.Bundle;
+import androidx.annotation.Nullable;
+
+/**
+ * State of the application activities, fed by the activity lifecycle callbacks.
+ *
+ * Replaces scanning `ActivityManager.getRunningTasks` (a binder call listing every task) on each call creation.
+ * The counters are written on the main thread and can be read from any thread.
+ */
+public class AppStateTracker {
+    // The process is alive without any activity, eg: woken up by a push or by Telecom
+    public static final String STATE_HEADLESS = "headless";
+    // An activity exists but none is in the foreground
+    public static final String STATE_BACKGROUND = "background";
+    public static final String STATE_FOREGROUND = "foreground";
+
+    private static volatile int createdActivities = 0;
+    private static volatile int startedActivities = 0;
+    private static volatile int resumedActivities = 0;
+    private static boolean installed = false;
+
+    private static final Application.ActivityLifecycleCallbacks callbacks = new Application.ActivityLifecycleCallbacks() {
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+            createdActivities++;
+        }
+
+        @Override
+        public void onActivityStarted(Activity activity) {
+            startedActivities++;
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+            resumedActivities++;
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+            resumedActivities = Math.max(0, resumedActivities - 1);
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+            startedActivities = Math.max(0, startedActivities - 1);
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+            createdActivities = Math.max(0, createdActivities - 1);
+        }
+    };
+
+    /**
+     * Starts tracking the activities, only the first call has an effect.
+     *
+     * @param currentActivity activity created before the tracker was installed, if any.
+     * @param resumed whether `currentActivity` is in the foreground.
+     */
+    public static synchronized void install(@Nullable Context context, @Nullable Activity currentActivity, boolean resumed) {
+        if (installed || context == null || !(context.getApplicationContext() instanceof Application)) {
+            return;
+        }
+        installed = true;
+
+        if (currentActivity != null) {
+            createdActivities++;
+            startedActivities++;
+            if (resumed) {
+                resumedActivities++;
+            }
+        }
+
+        ((Application) context.getApplicationContext()).registerActivityLifecycleCallbacks(callbacks);
+        CallKeepLog.d("[AppStateTracker] install, state: {}", getState());
+    }
+
+    public static void install(@Nullable Context context) {
+        install(context, null, false);
+    }
+
+    /**
+     * @return true when an activity of the application exists, even in the background.
+     */
+    public static boolean isRunning() {
+        return createdActivities > 0;
+    }
+
+    public static boolean isVisible() {
+        return startedActivities > 0;
+    }
+
+    public static boolean isForeground() {
+        return resumedActivities > 0;
+    }
+
+    public static String getState() {
+        if (isForeground()) {
+            return STATE_FOREGROUND;
+        }
+
+        return isRunning() ? STATE_BACKGROUND : STATE_HEADLESS;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.os.SystemClock;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Audio route of a connection, as last sent to JS.
+ *
+ * Telecom reports the audio state again each time anything changes, and a bluetooth headset can switch the route
+ * several times a second while connecting. A route equal to the one already sent is dropped, and a new route is
+ * only sent once it stayed unchanged for the debounce window.
+ *
+ * Routes come from the main thread (Telecom callbacks) and from the native modules thread (`setMutedCall`), while the
+ * flush runs on the main looper: the route state is guarded by the instance lock, held while the route is sent so
+ * the events keep their order.
+ */
+class AudioRouteDebouncer {
+    private static final int NO_ROUTE = -1;
+    private static final String TIMER_NAME = "audioRouteDebounce";
+
+    interface Callback {
+        void onRouteChanged(int route);
+    }
+
+    private static final AtomicLong sentCount = new AtomicLong();
+    private static final AtomicLong suppressedCount = new AtomicLong();
+
+    private final String uuid;
+    private final Callback callback;
+    private int sentRoute = NO_ROUTE;
+    private int pendingRoute = NO_ROUTE;
+    private long pendingSince = 0;
+    private long window = 0;
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    AudioRouteDebouncer(String uuid, Callback callback) {
+        this.uuid = uuid;
+        this.callback = callback;
+    }
+
+    /**
+     * @param window debounce window in ms, the first route of the connection is always sent at once.
+     */
+    synchronized void onRoute(int route, int window) {
+        // The flush is dropped when the timers of the call are cancelled from outside
+        if (pendingRoute != NO_ROUTE && !CallTimers.isScheduled(uuid, TIMER_NAME)) {
+            CallKeepLog.d("[AudioRouteDebouncer] onRoute, pending flush cancelled, uuid: {}", uuid);
+            pendingRoute = NO_ROUTE;
+        }
+
+        if (pendingRoute != NO_ROUTE) {
+            if (route != pendingRoute) {
+                // The pending route is replaced before being sent
+                pendingRoute = route;
+                pendingSince = SystemClock.uptimeMillis();
+            }
+            suppressedCount.incrementAndGet();
+            return;
+        }
+
+        if (route == sentRoute) {
+            suppressedCount.incrementAndGet();
+            return;
+        }
+
+        if (sentRoute == NO_ROUTE || window <= 0) {
+            send(route);
+            return;
+        }
+
+        this.window = window;
+        pendingRoute = route;
+        pendingSince = SystemClock.uptimeMillis();
+        CallTimers.schedule(uuid, TIMER_NAME, flushRunnable, window);
+    }
+
+    /**
+     * @return the number of audio route events sent to JS.
+     */
+    static long getSentCount() {
+        return sentCount.get();
+    }
+
+    /**
+     * @return the number of audio route events dropped as unchanged or replaced within the debounce window.
+     */
+    static long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    // A single timer is in flight, pushed back while the route keeps changing
+    private synchronized void flush() {
+        long elapsed = SystemClock.uptimeMillis() - pendingSince;
+        if (elapsed < window) {
+            CallTimers.schedule(uuid, TIMER_NAME, flushRunnable, window - elapsed);
+            return;
+        }
+
+        int route = pendingRoute;
+        pendingRoute = NO_ROUTE;
+        if (route == sentRoute) {
+            CallKeepLog.d("[AudioRouteDebouncer] flush, route back to the sent one, uuid: {}", uuid);
+            suppressedCount.incrementAndGet();
+            return;
+        }
+
+        send(route);
+    }
+
+    private void send(int route) {
+        sentRoute = route;
+        sentCount.incrementAndGet();
+        callback.onRouteChanged(route);
+    }
+}
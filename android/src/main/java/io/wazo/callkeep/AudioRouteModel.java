@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.content.Context;
+import android.media.AudioDeviceCallback;
+import android.media.AudioDeviceInfo;
+import android.media.AudioManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.telecom.CallAudioState;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Audio routes available on the device, kept up to date by an {@link AudioDeviceCallback}.
+ *
+ * The route selected for the calls is reported by {@link VoiceConnection#onCallAudioStateChanged}, so reading
+ * the routes does not call the audio service. The routes are only listed from the {@link AudioManager} on
+ * {@link #start}, and the selected route is only probed when no call reported it yet.
+ */
+public class AudioRouteModel {
+    public static final String ROUTE_PHONE = "Phone";
+    public static final String ROUTE_SPEAKER = "Speaker";
+    public static final String ROUTE_HEADSET = "Headset";
+    public static final String ROUTE_BLUETOOTH = "Bluetooth";
+
+    // Order of the routes returned to JS
+    private static final String[] ROUTES = { ROUTE_PHONE, ROUTE_SPEAKER, ROUTE_HEADSET, ROUTE_BLUETOOTH };
+
+    public interface Listener {
+        /**
+         * Called on the main thread when a route becomes available or unavailable.
+         */
+        void onRoutesChanged(List<String> routes, List<String> added, List<String> removed);
+    }
+
+    // Route of each connected device, by device id, only updated on the main thread
+    private static final Map<Integer, String> deviceRoutes = new HashMap<>();
+    private static volatile List<String> routes = Collections.emptyList();
+    private static volatile int routeMask = 0;
+    @Nullable
+    private static volatile String selectedRoute = null;
+    @Nullable
+    private static volatile Listener listener = null;
+    private static boolean started = false;
+
+    private static final AtomicLong changeCount = new AtomicLong();
+    private static final AtomicLong readCount = new AtomicLong();
+
+    private static final AudioDeviceCallback deviceCallback = new AudioDeviceCallback() {
+        @Override
+        public void onAudioDevicesAdded(AudioDeviceInfo[] devices) {
+            onDevicesChanged(devices, true);
+        }
+
+        @Override
+        public void onAudioDevicesRemoved(AudioDeviceInfo[] devices) {
+            onDevicesChanged(devices, false);
+        }
+    };
+
+    public static void setListener(@Nullable Listener routesListener) {
+        listener = routesListener;
+    }
+
+    // Lists the devices once, then follows the changes with the device callback
+    public static synchronized void start(@Nullable Context context) {
+        if (started || context == null) {
+            return;
+        }
+
+        // The application context is null while the application is created
+        Context appContext = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+        AudioManager audioManager = (AudioManager) appContext.getSystemService(Context.AUDIO_SERVICE);
+        if (audioManager == null) {
+            return;
+        }
+        started = true;
+
+        AudioDeviceInfo[] devices = audioManager.getDevices(AudioManager.GET_DEVICES_INPUTS + AudioManager.GET_DEVICES_OUTPUTS);
+        if (devices != null) {
+            for (AudioDeviceInfo device : devices) {
+                String route = getRouteType(device.getType());
+                if (route != null) {
+                    deviceRoutes.put(device.getId(), route);
+                }
+            }
+        }
+        updateRoutes();
+
+        // The callback first reports the devices already listed, they are ignored as their ids are known
+        audioManager.registerAudioDeviceCallback(deviceCallback, new Handler(Looper.getMainLooper()));
+        CallKeepLog.d("[AudioRouteModel] start, routes: {}", routes);
+    }
+
+    /**
+     * @return the available routes, eg: `Phone`, `Speaker`, `Headset`, `Bluetooth`.
+     */
+    public static List<String> getRoutes(@Nullable Context context) {
+        start(context);
+        readCount.incrementAndGet();
+
+        return routes;
+    }
+
+    public static boolean isAvailable(String route) {
+        int index = indexOf(route);
+        return index >= 0 && (routeMask & (1 << index)) != 0;
+    }
+
+    /**
+     * @return the route of the calls, probed from the audio service when no call reported it yet.
+     */
+    public static String getSelectedRoute(Context context) {
+        String route = selectedRoute;
+        if (route != null) {
+            return route;
+        }
+
+        AudioManager audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
+        if (audioManager.isBluetoothScoOn()) {
+            return ROUTE_BLUETOOTH;
+        }
+        if (audioManager.isSpeakerphoneOn()) {
+            return ROUTE_SPEAKER;
+        }
+        if (audioManager.isWiredHeadsetOn()) {
+            return ROUTE_HEADSET;
+        }
+        return ROUTE_PHONE;
+    }
+
+    public static void onCallAudioStateChanged(CallAudioState state) {
+        switch (state.getRoute()) {
+            case CallAudioState.ROUTE_BLUETOOTH:
+                selectedRoute = ROUTE_BLUETOOTH;
+                break;
+            case CallAudioState.ROUTE_SPEAKER:
+                selectedRoute = ROUTE_SPEAKER;
+                break;
+            case CallAudioState.ROUTE_WIRED_HEADSET:
+                selectedRoute = ROUTE_HEADSET;
+                break;
+            default:
+                selectedRoute = ROUTE_PHONE;
+                break;
+        }
+    }
+
+    // Without calls, the route is no more reported by Telecom
+    public static void onCallsEnded() {
+        selectedRoute = null;
+    }
+
+    @Nullable
+    public static String getRouteType(int type) {
+        switch (type) {
+            case AudioDeviceInfo.TYPE_BLUETOOTH_A2DP:
+            case AudioDeviceInfo.TYPE_BLUETOOTH_SCO:
+                return ROUTE_BLUETOOTH;
+            case AudioDeviceInfo.TYPE_WIRED_HEADPHONES:
+            case AudioDeviceInfo.TYPE_WIRED_HEADSET:
+                return ROUTE_HEADSET;
+            case AudioDeviceInfo.TYPE_BUILTIN_MIC:
+                return ROUTE_PHONE;
+            case AudioDeviceInfo.TYPE_BUILTIN_SPEAKER:
+                return ROUTE_SPEAKER;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the number of changes of the available routes.
+     */
+    public static long getChangeCount() {
+        return changeCount.get();
+    }
+
+    /**
+     * @return the number of reads answered without listing the devices.
+     */
+    public static long getReadCount() {
+        return readCount.get();
+    }
+
+    private static void onDevicesChanged(AudioDeviceInfo[] devices, boolean added) {
+        List<String> previous;
+        synchronized (AudioRouteModel.class) {
+            previous = routes;
+            for (AudioDeviceInfo device : devices) {
+                if (!added) {
+                    deviceRoutes.remove(device.getId());
+                    continue;
+                }
+                String route = getRouteType(device.getType());
+                if (route != null) {
+                    deviceRoutes.put(device.getId(), route);
+                }
+            }
+            if (!updateRoutes()) {
+                return;
+            }
+        }
+
+        List<String> current = routes;
+        List<String> addedRoutes = new ArrayList<>();
+        List<String> removedRoutes = new ArrayList<>();
+        for (String route : ROUTES) {
+            boolean wasAvailable = previous.contains(route);
+            boolean isAvailable = current.contains(route);
+            if (isAvailable && !wasAvailable) {
+                addedRoutes.add(route);
+            } else if (wasAvailable && !isAvailable) {
+                removedRoutes.add(route);
+            }
+        }
+
+        changeCount.incrementAndGet();
+        CallKeepLog.d("[AudioRouteModel] onDevicesChanged, routes: {}, added: {}, removed: {}", current, addedRoutes, removedRoutes);
+
+        Listener routesListener = listener;
+        if (routesListener != null) {
+            routesListener.onRoutesChanged(current, addedRoutes, removedRoutes);
+        }
+    }
+
+    // Must hold the class lock, returns true when the available routes changed
+    private static boolean updateRoutes() {
+        int mask = 0;
+        for (String route : deviceRoutes.values()) {
+            mask |= 1 << indexOf(route);
+        }
+        if (mask == routeMask) {
+            return false;
+        }
+
+        List<String> available = new ArrayList<>();
+        for (int i = 0; i < ROUTES.length; i++) {
+            if ((mask & (1 << i)) != 0) {
+                available.add(ROUTES[i]);
+            }
+        }
+        routeMask = mask;
+        routes = Collections.unmodifiableList(available);
+
+        return true;
+    }
+
+    private static int indexOf(String route) {
+        for (int i = 0; i < ROUTES.length; i++) {
+            if (ROUTES[i].equals(route)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package io.wazo.callkeep;
+
+import android.os.Bundle;
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.wazo.callkeep.Constants.ACTION_ANSWER_CALL;
+import static io.wazo.callkeep.Constants.ACTION_DID_DISPLAY_INCOMING_CALL;
+import static io.wazo.callkeep.Constants.ACTION_END_CALL;
+import static io.wazo.callkeep.Constants.ACTION_ONGOING_CALL;
+import static io.wazo.callkeep.Constants.ACTION_ON_CREATE_CONNECTION_FAILED;
+
+/**
+ * Immutable call event sent from the ConnectionService side to the RNCallKeepModule
+ * through the {@link CallEventBus}.
+ *
+ * The attributes are copied when the event is created, so later changes to the
+ * connection `handle` map do not leak into events that are already dispatched or delayed.
+ */
+public final class CallEvent {
+    public static final EventJournal.Codec<CallEvent> JOURNAL_CODEC = new EventJournal.Codec<CallEvent>() {
+        @Override
+        public String getName(CallEvent event) {
+            return event.getAction();
+        }
+
+        @Override
+        public Bundle getData(CallEvent event) {
+            Bundle data = new Bundle();
+            for (Map.Entry<String, String> attribute : event.getAttributes().entrySet()) {
+                data.putString(attribute.getKey(), attribute.getValue());
+            }
+
+            return data;
+        }
+
+        @Override
+        public CallEvent create(String name, Bundle data) {
+            Map<String, String> attributes = new HashMap<>();
+            for (String key : data.keySet()) {
+                attributes.put(key, data.getString(key));
+            }
+
+            return new CallEvent(name, attributes);
+        }
+    };
+
+    private final String action;
+    private final Map<String, String> attributes;
+
+    public CallEvent(String action, @Nullable Map<String, String> attributes) {
+        this.action = action;
+        this.attributes = attributes == null
+            ? Collections.<String, String>emptyMap()
+            : Collections.unmodifiableMap(new HashMap<>(attributes));
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    @Nullable
+    public String get(String key) {
+        return attributes.get(key);
+    }
+
+    /**
+     * Essential events change the call list on the JS side and must be kept over intermediate ones
+     * when events are delayed.
+     */
+    public boolean isEssential() {
+        switch (action) {
+            case ACTION_ANSWER_CALL:
+            case ACTION_DID_DISPLAY_INCOMING_CALL:
+            case ACTION_END_CALL:
+            case ACTION_ONGOING_CALL:
+            case ACTION_ON_CREATE_CONNECTION_FAILED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CallEvent{action=" + action + ", attributes=" + attributes + "}";
+    }
+}
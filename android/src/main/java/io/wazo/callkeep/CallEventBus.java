@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package io.wazo.callkeep;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static io.wazo.callkeep.Constants.EXTRA_CALL_UUID;
+
+/**
+ * In-process event bus between the ConnectionService side (VoiceConnection, VoiceConnectionService)
+ * and the RNCallKeepModule.
+ *
+ * Events are dispatched synchronously on the calling thread, listeners must not block.
+ */
+public class CallEventBus {
+    public interface Listener {
+        void onCallEvent(CallEvent event);
+    }
+
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public static void register(Listener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public static void unregister(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public static boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * @return false when no listener was registered to receive the event.
+     */
+    public static boolean post(CallEvent event) {
+        FlightRecorder.record(FlightRecorder.CATEGORY_EVENT, event.getAction(), event.get(EXTRA_CALL_UUID), 0);
+
+        if (listeners.isEmpty()) {
+            return false;
+        }
+
+        for (Listener listener : listeners) {
+            listener.onCallEvent(event);
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Logger of the module, with `{}` placeholders formatted only when the message is printed.
+ *
+ * Messages below the `logLevel` setting are not formatted. Messages from the debug level are also kept in a ring of
+ * the last {@link #CAPACITY} entries, recorded without formatting, and returned by {@link #dump}. The level defaults
+ * to debug, so debug messages are still formatted and printed until JS sets `logLevel` to `info` or higher; only then
+ * does a debug message cost no more than its ring slot, besides the boxing of primitive arguments.
+ * Strings, numbers, booleans and throwables are kept as is; other arguments could change after being logged,
+ * only their class is kept.
+ *
+ * Writers reserve a slot with a single atomic increment, an entry overwritten while being dumped is skipped.
+ */
+public final class CallKeepLog {
+    private static final String TAG = "RNCallKeep";
+
+    public static final int VERBOSE = Log.VERBOSE;
+    public static final int DEBUG = Log.DEBUG;
+    public static final int INFO = Log.INFO;
+    public static final int WARN = Log.WARN;
+    public static final int ERROR = Log.ERROR;
+    public static final int NONE = Integer.MAX_VALUE;
+
+    public static final int CAPACITY = 1024;
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAX_ARGS = 4;
+    private static final int RECORD_LEVEL = DEBUG;
+
+    /**
+     * Entry of the ring, formatted when dumped.
+     */
+    public static final class Entry {
+        public final long time;
+        public final int level;
+        public final String message;
+
+        Entry(long time, int level, String message) {
+            this.time = time;
+            this.level = level;
+            this.message = message;
+        }
+    }
+
+    private static volatile int level = DEBUG;
+
+    private static final AtomicLong sequence = new AtomicLong();
+    // Sequence + 1 of the entry stored in each slot, 0 while it is written
+    private static final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+    private static final long[] times = new long[CAPACITY];
+    private static final int[] levels = new int[CAPACITY];
+    private static final String[] formats = new String[CAPACITY];
+    private static final Object[] arguments = new Object[CAPACITY * MAX_ARGS];
+    private static final int[] argumentCounts = new int[CAPACITY];
+
+    private CallKeepLog() {
+    }
+
+    public static void setLevel(int newLevel) {
+        level = newLevel;
+    }
+
+    public static int getLevel() {
+        return level;
+    }
+
+    /**
+     * @param name `verbose`, `debug`, `info`, `warn`, `error` or `none`, other values give `debug`.
+     */
+    public static int parseLevel(String name) {
+        switch (name) {
+            case "verbose":
+                return VERBOSE;
+            case "info":
+                return INFO;
+            case "warn":
+                return WARN;
+            case "error":
+                return ERROR;
+            case "none":
+                return NONE;
+            default:
+                return DEBUG;
+        }
+    }
+
+    public static String getLevelName(int messageLevel) {
+        switch (messageLevel) {
+            case VERBOSE:
+                return "verbose";
+            case DEBUG:
+                return "debug";
+            case INFO:
+                return "info";
+            case WARN:
+                return "warn";
+            case ERROR:
+                return "error";
+            default:
+                return "none";
+        }
+    }
+
+    public static boolean isLoggable(int messageLevel) {
+        return messageLevel >= level;
+    }
+
+    public static void v(String format) {
+        log(VERBOSE, format, 0, null, null, null, null);
+    }
+
+    public static void v(String format, Object a) {
+        log(VERBOSE, format, 1, a, null, null, null);
+    }
+
+    public static void v(String format, Object a, Object b) {
+        log(VERBOSE, format, 2, a, b, null, null);
+    }
+
+    public static void v(String format, Object a, Object b, Object c) {
+        log(VERBOSE, format, 3, a, b, c, null);
+    }
+
+    public static void v(String format, Object a, Object b, Object c, Object d) {
+        log(VERBOSE, format, 4, a, b, c, d);
+    }
+
+    public static void d(String format) {
+        log(DEBUG, format, 0, null, null, null, null);
+    }
+
+    public static void d(String format, Object a) {
+        log(DEBUG, format, 1, a, null, null, null);
+    }
+
+    public static void d(String format, Object a, Object b) {
+        log(DEBUG, format, 2, a, b, null, null);
+    }
+
+    public static void d(String format, Object a, Object b, Object c) {
+        log(DEBUG, format, 3, a, b, c, null);
+    }
+
+    public static void d(String format, Object a, Object b, Object c, Object d) {
+        log(DEBUG, format, 4, a, b, c, d);
+    }
+
+    public static void i(String format) {
+        log(INFO, format, 0, null, null, null, null);
+    }
+
+    public static void i(String format, Object a) {
+        log(INFO, format, 1, a, null, null, null);
+    }
+
+    public static void i(String format, Object a, Object b) {
+        log(INFO, format, 2, a, b, null, null);
+    }
+
+    public static void i(String format, Object a, Object b, Object c) {
+        log(INFO, format, 3, a, b, c, null);
+    }
+
+    public static void i(String format, Object a, Object b, Object c, Object d) {
+        log(INFO, format, 4, a, b, c, d);
+    }
+
+    public static void w(String format) {
+        log(WARN, format, 0, null, null, null, null);
+    }
+
+    public static void w(String format, Object a) {
+        log(WARN, format, 1, a, null, null, null);
+    }
+
+    public static void w(String format, Object a, Object b) {
+        log(WARN, format, 2, a, b, null, null);
+    }
+
+    public static void w(String format, Object a, Object b, Object c) {
+        log(WARN, format, 3, a, b, c, null);
+    }
+
+    public static void w(String format, Object a, Object b, Object c, Object d) {
+        log(WARN, format, 4, a, b, c, d);
+    }
+
+    public static void e(String format) {
+        log(ERROR, format, 0, null, null, null, null);
+    }
+
+    public static void e(String format, Object a) {
+        log(ERROR, format, 1, a, null, null, null);
+    }
+
+    public static void e(String format, Object a, Object b) {
+        log(ERROR, format, 2, a, b, null, null);
+    }
+
+    public static void e(String format, Object a, Object b, Object c) {
+        log(ERROR, format, 3, a, b, c, null);
+    }
+
+    public static void e(String format, Object a, Object b, Object c, Object d) {
+        log(ERROR, format, 4, a, b, c, d);
+    }
+
+    /**
+     * @return the recorded entries, oldest first.
+     */
+    public static List<Entry> dump() {
+        long end = sequence.get();
+        long start = Math.max(0, end - CAPACITY);
+        List<Entry> entries = new ArrayList<>((int) (end - start));
+        Object[] args = new Object[MAX_ARGS];
+
+        for (long seq = start; seq < end; seq++) {
+            int slot = (int) (seq & MASK);
+            if (published.get(slot) != seq + 1) {
+                continue;
+            }
+
+            long time = times[slot];
+            int entryLevel = levels[slot];
+            String format = formats[slot];
+            int count = argumentCounts[slot];
+            System.arraycopy(arguments, slot * MAX_ARGS, args, 0, MAX_ARGS);
+
+            if (published.get(slot) != seq + 1) {
+                continue;
+            }
+            entries.add(new Entry(time, entryLevel, format(format, count, args[0], args[1], args[2], args[3])));
+        }
+
+        return entries;
+    }
+
+    /**
+     * @return the number of entries recorded since the application started.
+     */
+    public static long getRecordedCount() {
+        return sequence.get();
+    }
+
+    private static void log(int messageLevel, String format, int count, Object a, Object b, Object c, Object d) {
+        if (messageLevel >= RECORD_LEVEL) {
+            record(messageLevel, format, count, a, b, c, d);
+        }
+        if (messageLevel < level) {
+            return;
+        }
+
+        // A throwable after the placeholders is printed with its stack trace
+        Object last = count > 0 ? (count == 1 ? a : count == 2 ? b : count == 3 ? c : d) : null;
+        Throwable throwable = last instanceof Throwable && countPlaceholders(format) < count ? (Throwable) last : null;
+        String message = format(format, count, a, b, c, d);
+
+        if (throwable == null) {
+            Log.println(messageLevel, TAG, message);
+        } else if (messageLevel >= ERROR) {
+            Log.e(TAG, message, throwable);
+        } else {
+            Log.w(TAG, message, throwable);
+        }
+    }
+
+    private static void record(int messageLevel, String format, int count, Object a, Object b, Object c, Object d) {
+        long seq = sequence.getAndIncrement();
+        int slot = (int) (seq & MASK);
+        int offset = slot * MAX_ARGS;
+
+        published.set(slot, 0);
+        times[slot] = System.currentTimeMillis();
+        levels[slot] = messageLevel;
+        formats[slot] = format;
+        argumentCounts[slot] = count;
+        arguments[offset] = retained(a);
+        arguments[offset + 1] = retained(b);
+        arguments[offset + 2] = retained(c);
+        arguments[offset + 3] = retained(d);
+        published.lazySet(slot, seq + 1);
+    }
+
+    private static Object retained(Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+            || value instanceof Character || value instanceof Throwable || value instanceof Enum) {
+            return value;
+        }
+
+        return value.getClass();
+    }
+
+    private static int countPlaceholders(String format) {
+        int count = 0;
+        for (int index = format.indexOf("{}"); index >= 0; index = format.indexOf("{}", index + 2)) {
+            count++;
+        }
+
+        return count;
+    }
+
+    private static String format(String format, int count, Object a, Object b, Object c, Object d) {
+        if (count == 0) {
+            return format;
+        }
+
+        StringBuilder builder = new StringBuilder(format.length() + 32 * count);
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int index = format.indexOf("{}", start);
+            if (index < 0) {
+                break;
+            }
+            Object arg = i == 0 ? a : i == 1 ? b : i == 2 ? c : d;
+            builder.append(format, start, index).append(arg instanceof Class ? "<" + ((Class<?>) arg).getSimpleName() + ">" : arg);
+            start = index + 2;
+        }
+        builder.append(format, start, format.length());
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.content.Context;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Immutable settings passed to `setup` / `setSettings`, parsed once from their stored JSON form.
+ *
+ * A new instance is created on each change and swapped atomically, so the ConnectionService reads
+ * typed fields without locks, JSON parsing or React maps.
+ */
+public final class CallKeepSettings {
+    public static final int NO_TIMEOUT = -1;
+    public static final int DEFAULT_AUDIO_ROUTE_DEBOUNCE = 300;
+
+    public static final CallKeepSettings EMPTY = new CallKeepSettings(new JSONObject());
+
+    public static final class ForegroundService {
+        private final String channelId;
+        private final String channelName;
+        private final String notificationTitle;
+        private final String notificationIcon;
+        private volatile int notificationIconResource = ResourceResolver.UNRESOLVED;
+
+        private ForegroundService(JSONObject json) {
+            channelId = json.optString("channelId");
+            channelName = json.optString("channelName");
+            notificationTitle = json.optString("notificationTitle");
+            notificationIcon = optString(json, "notificationIcon");
+        }
+
+        public String getChannelId() {
+            return channelId;
+        }
+
+        public String getChannelName() {
+            return channelName;
+        }
+
+        public String getNotificationTitle() {
+            return notificationTitle;
+        }
+
+        @Nullable
+        public String getNotificationIcon() {
+            return notificationIcon;
+        }
+
+        /**
+         * @return the `mipmap` identifier of the notification icon, 0 when not set or not found.
+         */
+        public int getNotificationIconResource(Context context) {
+            int resource = notificationIconResource;
+            if (resource == ResourceResolver.UNRESOLVED) {
+                resource = notificationIcon != null ? ResourceResolver.getIdentifier(context, notificationIcon, "mipmap") : 0;
+                notificationIconResource = resource;
+            }
+
+            return resource;
+        }
+    }
+
+    public static final class AdaptiveReachability {
+        private final int percentile;
+        private final int min;
+        private final int max;
+
+        private AdaptiveReachability(JSONObject json) {
+            percentile = Math.max(1, Math.min(json.optInt("percentile", 90), 100));
+            min = json.optInt("min", 500);
+            max = Math.max(min, json.optInt("max", 5000));
+        }
+
+        public int getPercentile() {
+            return percentile;
+        }
+
+        public int getMin() {
+            return min;
+        }
+
+        public int getMax() {
+            return max;
+        }
+    }
+
+    public static final class HeadlessTask {
+        public static final String RETRY_NONE = "none";
+        public static final String RETRY_LINEAR = "linear";
+        public static final String RETRY_EXPONENTIAL = "exponential";
+
+        private final long timeout;
+        private final String retryPolicy;
+        private final int maxRetries;
+        private final int retryDelay;
+        private final int maxRetryDelay;
+
+        private HeadlessTask(JSONObject json) {
+            timeout = json.optLong("timeout", 60000);
+            String policy = json.optString("retryPolicy", RETRY_LINEAR);
+            retryPolicy = RETRY_NONE.equals(policy) || RETRY_EXPONENTIAL.equals(policy) ? policy : RETRY_LINEAR;
+            maxRetries = json.optInt("maxRetries", 5);
+            retryDelay = Math.max(0, json.optInt("retryDelay", 500));
+            maxRetryDelay = Math.max(retryDelay, json.optInt("maxRetryDelay", 8000));
+        }
+
+        public long getTimeout() {
+            return timeout;
+        }
+
+        /**
+         * @return one of {@link #RETRY_NONE}, {@link #RETRY_LINEAR} or {@link #RETRY_EXPONENTIAL}.
+         */
+        public String getRetryPolicy() {
+            return retryPolicy;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public int getRetryDelay() {
+            return retryDelay;
+        }
+
+        public int getMaxRetryDelay() {
+            return maxRetryDelay;
+        }
+    }
+
+    private final String json;
+    private final boolean selfManaged;
+    private final String imageName;
+    private final int logLevel;
+    private volatile int imageResource = ResourceResolver.UNRESOLVED;
+    private final int displayCallReachabilityTimeout;
+    private final int eventBatchingWindow;
+    private final int audioRouteDebounce;
+    private final int delayedEventsCapacity;
+    private final long delayedEventsTtl;
+    private final boolean callMetricsEvents;
+    private final boolean flightRecorder;
+    private final ForegroundService foregroundService;
+    private final AdaptiveReachability adaptiveReachability;
+    private final HeadlessTask headlessTask;
+
+    private CallKeepSettings(JSONObject json) {
+        this.json = json.toString();
+        selfManaged = json.optBoolean("selfManaged", false);
+        imageName = optString(json, "imageName");
+        logLevel = CallKeepLog.parseLevel(json.optString("logLevel", "debug"));
+        displayCallReachabilityTimeout = json.has("displayCallReachabilityTimeout") ?
+            json.optInt("displayCallReachabilityTimeout", NO_TIMEOUT) : NO_TIMEOUT;
+        eventBatchingWindow = json.optInt("eventBatchingWindow", 0);
+        audioRouteDebounce = json.optInt("audioRouteDebounce", DEFAULT_AUDIO_ROUTE_DEBOUNCE);
+        delayedEventsCapacity = json.optInt("delayedEventsCapacity", DelayedEventQueue.DEFAULT_CAPACITY);
+        delayedEventsTtl = json.optLong("delayedEventsTtl", DelayedEventQueue.DEFAULT_TTL);
+        callMetricsEvents = json.optBoolean("callMetricsEvents", false);
+        flightRecorder = json.optBoolean("flightRecorder", true);
+
+        JSONObject foregroundServiceJson = json.optJSONObject("foregroundService");
+        foregroundService = foregroundServiceJson != null && foregroundServiceJson.has("channelId") ?
+            new ForegroundService(foregroundServiceJson) : null;
+
+        JSONObject adaptiveReachabilityJson = json.optJSONObject("adaptiveReachabilityTimeout");
+        adaptiveReachability = adaptiveReachabilityJson != null ? new AdaptiveReachability(adaptiveReachabilityJson) : null;
+
+        JSONObject headlessTaskJson = json.optJSONObject("headlessTask");
+        headlessTask = new HeadlessTask(headlessTaskJson != null ? headlessTaskJson : new JSONObject());
+    }
+
+    /**
+     * @param json settings stored by {@link #toJson}, an invalid value gives the default settings.
+     */
+    public static CallKeepSettings fromJson(@Nullable String json) {
+        if (json == null) {
+            return EMPTY;
+        }
+
+        try {
+            return new CallKeepSettings(new JSONObject(json));
+        } catch (JSONException e) {
+            return EMPTY;
+        }
+    }
+
+    public static CallKeepSettings fromReadableMap(ReadableMap options) throws JSONException {
+        return new CallKeepSettings(MapUtils.convertMapToJson(options));
+    }
+
+    /**
+     * @return a copy of the settings with the `foregroundService` value replaced.
+     */
+    public CallKeepSettings withForegroundService(ReadableMap foregroundService) throws JSONException {
+        JSONObject updated = new JSONObject(json);
+        updated.put("foregroundService", MapUtils.convertMapToJson(foregroundService));
+
+        return new CallKeepSettings(updated);
+    }
+
+    public String toJson() {
+        return json;
+    }
+
+    public boolean isSelfManaged() {
+        return selfManaged;
+    }
+
+    @Nullable
+    public String getImageName() {
+        return imageName;
+    }
+
+    /**
+     * @return the `drawable` identifier of `imageName`, 0 when not set or not found.
+     */
+    public int getImageResource(Context context) {
+        int resource = imageResource;
+        if (resource == ResourceResolver.UNRESOLVED) {
+            resource = imageName != null ? ResourceResolver.getIdentifier(context, imageName, "drawable") : 0;
+            imageResource = resource;
+        }
+
+        return resource;
+    }
+
+    /**
+     * @return the lowest {@link CallKeepLog} level printed to logcat.
+     */
+    public int getLogLevel() {
+        return logLevel;
+    }
+
+    /**
+     * @return the delay before ending an incoming call when JS is not reachable, or {@link #NO_TIMEOUT}.
+     */
+    public int getDisplayCallReachabilityTimeout() {
+        return displayCallReachabilityTimeout;
+    }
+
+    public int getEventBatchingWindow() {
+        return eventBatchingWindow;
+    }
+
+    /**
+     * @return how long, in ms, a new audio route must stay unchanged before being sent to JS.
+     */
+    public int getAudioRouteDebounce() {
+        return audioRouteDebounce;
+    }
+
+    public int getDelayedEventsCapacity() {
+        return delayedEventsCapacity;
+    }
+
+    public long getDelayedEventsTtl() {
+        return delayedEventsTtl;
+    }
+
+    public boolean isCallMetricsEvents() {
+        return callMetricsEvents;
+    }
+
+    public boolean isFlightRecorder() {
+        return flightRecorder;
+    }
+
+    /**
+     * @return the foreground service settings, null when no channel is configured.
+     */
+    @Nullable
+    public ForegroundService getForegroundService() {
+        return foregroundService;
+    }
+
+    /**
+     * @return the bounds of the learned wake up timeout, null when the fixed timeout is used.
+     */
+    @Nullable
+    public AdaptiveReachability getAdaptiveReachability() {
+        return adaptiveReachability;
+    }
+
+    public HeadlessTask getHeadlessTask() {
+        return headlessTask;
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+
+    @Nullable
+    private static String optString(JSONObject json, String key) {
+        return json.has(key) && !json.isNull(key) ? json.optString(key) : null;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package io.wazo.callkeep;
+
+import android.os.SystemClock;
+import androidx.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latency of each step of the call lifecycle, per call and aggregated in histograms.
+ *
+ * Each step marks the call with a monotonic timestamp ({@link SystemClock#elapsedRealtimeNanos}).
+ * When both ends of a stage are marked, its duration is recorded in the stage histogram.
+ * The timelines of the last {@link #MAX_CALLS} calls are kept.
+ */
+public class CallMetrics {
+    public static final int MARK_DISPLAY_INCOMING_CALL = 0;
+    public static final int MARK_CREATE_INCOMING_CONNECTION = 1;
+    public static final int MARK_SHOW_INCOMING_CALL_UI = 2;
+    public static final int MARK_ANSWER = 3;
+    public static final int MARK_AUDIO_SESSION_DELIVERED = 4;
+    public static final int MARK_START_CALL = 5;
+    public static final int MARK_PLACE_CALL = 6;
+    public static final int MARK_CREATE_OUTGOING_CONNECTION = 7;
+    public static final int MARK_START_CALL_DELIVERED = 8;
+    private static final int MARK_COUNT = 9;
+
+    public static final int MAX_CALLS = 64;
+
+    public interface Listener {
+        void onStageRecorded(String uuid, String stage, long durationNanos);
+    }
+
+    public static class Stage {
+        public final String name;
+        final int from;
+        final int to;
+        public final LatencyHistogram histogram = new LatencyHistogram();
+
+        Stage(String name, int from, int to) {
+            this.name = name;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    public static final Stage[] STAGES = {
+        new Stage("createIncomingConnection", MARK_DISPLAY_INCOMING_CALL, MARK_CREATE_INCOMING_CONNECTION),
+        new Stage("showIncomingCallUi", MARK_CREATE_INCOMING_CONNECTION, MARK_SHOW_INCOMING_CALL_UI),
+        new Stage("answer", MARK_SHOW_INCOMING_CALL_UI, MARK_ANSWER),
+        new Stage("answerAudioSession", MARK_ANSWER, MARK_AUDIO_SESSION_DELIVERED),
+        new Stage("timeToRing", MARK_DISPLAY_INCOMING_CALL, MARK_SHOW_INCOMING_CALL_UI),
+        new Stage("timeToAudio", MARK_DISPLAY_INCOMING_CALL, MARK_AUDIO_SESSION_DELIVERED),
+        new Stage("placeCall", MARK_START_CALL, MARK_PLACE_CALL),
+        new Stage("createOutgoingConnection", MARK_PLACE_CALL, MARK_CREATE_OUTGOING_CONNECTION),
+        new Stage("startCallEvent", MARK_CREATE_OUTGOING_CONNECTION, MARK_START_CALL_DELIVERED),
+        new Stage("timeToDial", MARK_START_CALL, MARK_START_CALL_DELIVERED),
+    };
+
+    // Timestamps of each call by uuid, 0 when the step was not reached
+    private static final Map<String, long[]> timelines = new LinkedHashMap<String, long[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+            return size() > MAX_CALLS;
+        }
+    };
+
+    private static volatile Listener listener;
+
+    public static void setListener(@Nullable Listener listener) {
+        CallMetrics.listener = listener;
+    }
+
+    public static void mark(@Nullable String uuid, int mark) {
+        if (uuid == null) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtimeNanos();
+        long[] timeline;
+
+        synchronized (timelines) {
+            timeline = timelines.get(uuid);
+            if (timeline == null) {
+                timeline = new long[MARK_COUNT];
+                timelines.put(uuid, timeline);
+            }
+            // Keep the first occurrence, some steps can be reported twice (eg: onAnswer)
+            if (timeline[mark] != 0) {
+                return;
+            }
+            timeline[mark] = now;
+            timeline = timeline.clone();
+        }
+
+        for (Stage stage : STAGES) {
+            if (stage.to != mark || timeline[stage.from] == 0) {
+                continue;
+            }
+
+            long duration = now - timeline[stage.from];
+            stage.histogram.record(duration / 1000);
+
+            Listener currentListener = listener;
+            if (currentListener != null) {
+                currentListener.onStageRecorded(uuid, stage.name, duration);
+            }
+        }
+    }
+
+    /**
+     * @return the duration of each stage reached by the call, in nanoseconds.
+     */
+    public static Map<String, Map<String, Long>> getCallDurations() {
+        Map<String, Map<String, Long>> durations = new LinkedHashMap<>();
+
+        synchronized (timelines) {
+            for (Map.Entry<String, long[]> entry : timelines.entrySet()) {
+                long[] timeline = entry.getValue();
+                Map<String, Long> callDurations = new LinkedHashMap<>();
+
+                for (Stage stage : STAGES) {
+                    if (timeline[stage.from] != 0 && timeline[stage.to] != 0) {
+                        callDurations.put(stage.name, timeline[stage.to] - timeline[stage.from]);
+                    }
+                }
+                durations.put(entry.getKey(), callDurations);
+            }
+        }
+
+        return durations;
+    }
+
+    public static void reset() {
+        synchronized (timelines) {
+            timelines.clear();
+        }
+        for (Stage stage : STAGES) {
+            stage.histogram.reset();
+        }
+    }
+}
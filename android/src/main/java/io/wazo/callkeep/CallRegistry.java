@@ -0,0 +1,585 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package io.wazo.callkeep;
+
+import android.telecom.Connection;
+import androidx.annotation.Nullable;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Registry of the current connections, indexed by call UUID, by connection state and by remote number.
+ *
+ * Telecom callbacks mutate it on the main thread while React methods read it from the native modules thread.
+ * The registry is an immutable {@link Snapshot} swapped atomically on each change (copy-on-write), so reads
+ * never lock and always see the uuid, state and number indices at the same point in time.
+ * Writes copy the indices, which is cheap for the handful of calls a device can hold.
+ *
+ * Each change increments the snapshot version. Calls keep the version of their last change and removed calls
+ * are remembered for {@link #MAX_REMOVED} changes, so JS can ask for the changes since the version it knows.
+ */
+public class CallRegistry {
+    public static final int MAX_REMOVED = 64;
+
+    public interface Listener {
+        void onCallsChanged(long version);
+    }
+
+    /**
+     * State of a call as exposed to JS, replaced on each change.
+     */
+    public static final class CallInfo {
+        private final String uuid;
+        private final String number;
+        private final String name;
+        private final int state;
+        private final boolean muted;
+        private final String audioRoute;
+        private final long createdAt;
+        private final long updatedAt;
+        private final long version;
+
+        CallInfo(String uuid, @Nullable String number, @Nullable String name, int state, boolean muted,
+                 @Nullable String audioRoute, long createdAt, long updatedAt, long version) {
+            this.uuid = uuid;
+            this.number = number;
+            this.name = name;
+            this.state = state;
+            this.muted = muted;
+            this.audioRoute = audioRoute;
+            this.createdAt = createdAt;
+            this.updatedAt = updatedAt;
+            this.version = version;
+        }
+
+        public String getUuid() {
+            return uuid;
+        }
+
+        @Nullable
+        public String getNumber() {
+            return number;
+        }
+
+        @Nullable
+        public String getName() {
+            return name;
+        }
+
+        public int getState() {
+            return state;
+        }
+
+        public boolean isOnHold() {
+            return state == Connection.STATE_HOLDING;
+        }
+
+        public boolean isMuted() {
+            return muted;
+        }
+
+        @Nullable
+        public String getAudioRoute() {
+            return audioRoute;
+        }
+
+        /**
+         * @return when the call was registered, in ms since the epoch.
+         */
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        /**
+         * @return when the call last changed, in ms since the epoch.
+         */
+        public long getUpdatedAt() {
+            return updatedAt;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    public static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(
+            Collections.<String, VoiceConnection>emptyMap(),
+            Collections.<String, Integer>emptyMap(),
+            Collections.<String, String>emptyMap(),
+            Collections.<Integer, Set<String>>emptyMap(),
+            Collections.<String, Set<String>>emptyMap(),
+            Collections.<String, CallInfo>emptyMap(),
+            Collections.<String, Long>emptyMap(),
+            0,
+            0
+        );
+
+        private final Map<String, VoiceConnection> connections;
+        private final Map<String, Integer> states;
+        private final Map<String, String> numbers;
+        private final Map<Integer, Set<String>> uuidsByState;
+        private final Map<String, Set<String>> uuidsByNumber;
+        private final Map<String, CallInfo> calls;
+        // Version at which each recently removed call was removed, the oldest first
+        private final Map<String, Long> removed;
+        private final long version;
+        // Oldest version from which the changes can be computed
+        private final long diffBase;
+
+        private Snapshot(
+            Map<String, VoiceConnection> connections,
+            Map<String, Integer> states,
+            Map<String, String> numbers,
+            Map<Integer, Set<String>> uuidsByState,
+            Map<String, Set<String>> uuidsByNumber,
+            Map<String, CallInfo> calls,
+            Map<String, Long> removed,
+            long version,
+            long diffBase
+        ) {
+            this.connections = connections;
+            this.states = states;
+            this.numbers = numbers;
+            this.uuidsByState = uuidsByState;
+            this.uuidsByNumber = uuidsByNumber;
+            this.calls = calls;
+            this.removed = removed;
+            this.version = version;
+            this.diffBase = diffBase;
+        }
+
+        @Nullable
+        public VoiceConnection get(String uuid) {
+            return uuid == null ? null : connections.get(uuid);
+        }
+
+        public boolean contains(String uuid) {
+            return uuid != null && connections.containsKey(uuid);
+        }
+
+        public Map<String, VoiceConnection> getConnections() {
+            return connections;
+        }
+
+        /**
+         * @return the last known `Connection.STATE_*` of the call, or -1 when the call is unknown.
+         */
+        public int getState(String uuid) {
+            Integer state = uuid == null ? null : states.get(uuid);
+            return state == null ? -1 : state;
+        }
+
+        @Nullable
+        public String getNumber(String uuid) {
+            return uuid == null ? null : numbers.get(uuid);
+        }
+
+        public Set<String> getUuidsByState(int state) {
+            Set<String> uuids = uuidsByState.get(state);
+            return uuids == null ? Collections.<String>emptySet() : uuids;
+        }
+
+        public Set<String> getUuidsByNumber(String number) {
+            Set<String> uuids = number == null ? null : uuidsByNumber.get(number);
+            return uuids == null ? Collections.<String>emptySet() : uuids;
+        }
+
+        public int size() {
+            return connections.size();
+        }
+
+        public boolean isEmpty() {
+            return connections.isEmpty();
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        @Nullable
+        public CallInfo getCall(String uuid) {
+            return uuid == null ? null : calls.get(uuid);
+        }
+
+        public Collection<CallInfo> getCalls() {
+            return calls.values();
+        }
+
+        /**
+         * @return false when `version` is unknown or too old for {@link #getChangedSince} and {@link #getRemovedSince}.
+         */
+        public boolean canDiffFrom(long version) {
+            return version >= diffBase && version <= this.version;
+        }
+
+        public List<CallInfo> getChangedSince(long version) {
+            List<CallInfo> changed = new ArrayList<>();
+            for (CallInfo call : calls.values()) {
+                if (call.version > version) {
+                    changed.add(call);
+                }
+            }
+
+            return changed;
+        }
+
+        public List<String> getRemovedSince(long version) {
+            List<String> uuids = new ArrayList<>();
+            for (Map.Entry<String, Long> entry : removed.entrySet()) {
+                if (entry.getValue() > version) {
+                    uuids.add(entry.getKey());
+                }
+            }
+
+            return uuids;
+        }
+    }
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(Snapshot.EMPTY);
+    private volatile Listener listener;
+
+    /**
+     * @return the name of a `Connection.STATE_*` value sent to JS, eg: `ringing`.
+     */
+    public static String getStateName(int state) {
+        switch (state) {
+            case Connection.STATE_INITIALIZING:
+                return "initializing";
+            case Connection.STATE_NEW:
+                return "new";
+            case Connection.STATE_RINGING:
+                return "ringing";
+            case Connection.STATE_DIALING:
+                return "dialing";
+            case Connection.STATE_ACTIVE:
+                return "active";
+            case Connection.STATE_HOLDING:
+                return "holding";
+            case Connection.STATE_DISCONNECTED:
+                return "disconnected";
+            default:
+                return "unknown";
+        }
+    }
+
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    public Snapshot snapshot() {
+        return current.get();
+    }
+
+    @Nullable
+    public VoiceConnection get(String uuid) {
+        return current.get().get(uuid);
+    }
+
+    public boolean contains(String uuid) {
+        return current.get().contains(uuid);
+    }
+
+    public int size() {
+        return current.get().size();
+    }
+
+    /**
+     * Adds the connection, replacing any connection registered with the same UUID.
+     */
+    public void put(String uuid, VoiceConnection connection, @Nullable String number, @Nullable String name, int state) {
+        while (true) {
+            Snapshot previous = current.get();
+            Builder builder = new Builder(previous);
+            long now = System.currentTimeMillis();
+            builder.remove(uuid);
+            builder.add(uuid, connection, new CallInfo(uuid, number, name, state, false, null, now, now, builder.version));
+
+            if (swap(previous, builder.build())) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the removed connection, or null when the UUID was not registered.
+     */
+    @Nullable
+    public VoiceConnection remove(String uuid) {
+        while (true) {
+            Snapshot previous = current.get();
+            VoiceConnection connection = previous.get(uuid);
+            if (connection == null) {
+                return null;
+            }
+
+            Builder builder = new Builder(previous);
+            builder.remove(uuid);
+            builder.addRemoved(uuid);
+
+            if (swap(previous, builder.build())) {
+                return connection;
+            }
+        }
+    }
+
+    /**
+     * Moves the call to the state index of `state`, ignored when the call is not registered.
+     */
+    public void updateState(String uuid, int state) {
+        while (true) {
+            Snapshot previous = current.get();
+            VoiceConnection connection = previous.get(uuid);
+            CallInfo call = previous.getCall(uuid);
+            if (connection == null || call == null || call.state == state) {
+                return;
+            }
+
+            Builder builder = new Builder(previous);
+            builder.remove(uuid);
+            builder.add(uuid, connection, new CallInfo(uuid, call.number, call.name, state, call.muted,
+                call.audioRoute, call.createdAt, System.currentTimeMillis(), builder.version));
+
+            if (swap(previous, builder.build())) {
+                return;
+            }
+        }
+    }
+
+    public void updateAudioState(String uuid, boolean muted, @Nullable String audioRoute) {
+        while (true) {
+            Snapshot previous = current.get();
+            VoiceConnection connection = previous.get(uuid);
+            CallInfo call = previous.getCall(uuid);
+            if (connection == null || call == null || (call.muted == muted && equals(call.audioRoute, audioRoute))) {
+                return;
+            }
+
+            Builder builder = new Builder(previous);
+            builder.remove(uuid);
+            builder.add(uuid, connection, new CallInfo(uuid, call.number, call.name, call.state, muted,
+                audioRoute, call.createdAt, System.currentTimeMillis(), builder.version));
+
+            if (swap(previous, builder.build())) {
+                return;
+            }
+        }
+    }
+
+    public void updateDisplay(String uuid, @Nullable String number, @Nullable String name) {
+        while (true) {
+            Snapshot previous = current.get();
+            VoiceConnection connection = previous.get(uuid);
+            CallInfo call = previous.getCall(uuid);
+            if (connection == null || call == null || (equals(call.number, number) && equals(call.name, name))) {
+                return;
+            }
+
+            Builder builder = new Builder(previous);
+            builder.remove(uuid);
+            builder.add(uuid, connection, new CallInfo(uuid, number, name, call.state, call.muted,
+                call.audioRoute, call.createdAt, System.currentTimeMillis(), builder.version));
+
+            if (swap(previous, builder.build())) {
+                return;
+            }
+        }
+    }
+
+    public void clear() {
+        while (true) {
+            Snapshot previous = current.get();
+            if (previous.isEmpty()) {
+                return;
+            }
+
+            Builder builder = new Builder(previous);
+            for (String uuid : previous.getConnections().keySet()) {
+                builder.remove(uuid);
+                builder.addRemoved(uuid);
+            }
+
+            if (swap(previous, builder.build())) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Read-only map view of the connections by UUID, each read goes to the latest snapshot.
+     */
+    public Map<String, VoiceConnection> asMap() {
+        return new AbstractMap<String, VoiceConnection>() {
+            @Override
+            public Set<Entry<String, VoiceConnection>> entrySet() {
+                return current.get().getConnections().entrySet();
+            }
+
+            @Override
+            public VoiceConnection get(Object key) {
+                return current.get().getConnections().get(key);
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return current.get().getConnections().containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return current.get().size();
+            }
+        };
+    }
+
+    private boolean swap(Snapshot previous, Snapshot next) {
+        if (!current.compareAndSet(previous, next)) {
+            return false;
+        }
+
+        Listener currentListener = listener;
+        if (currentListener != null) {
+            currentListener.onCallsChanged(next.version);
+        }
+
+        return true;
+    }
+
+    private static boolean equals(@Nullable String a, @Nullable String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static class Builder {
+        private final Map<String, VoiceConnection> connections;
+        private final Map<String, Integer> states;
+        private final Map<String, String> numbers;
+        private final Map<Integer, Set<String>> uuidsByState;
+        private final Map<String, Set<String>> uuidsByNumber;
+        private final Map<String, CallInfo> calls;
+        private final LinkedHashMap<String, Long> removed;
+        final long version;
+        private long diffBase;
+
+        Builder(Snapshot snapshot) {
+            connections = new HashMap<>(snapshot.connections);
+            states = new HashMap<>(snapshot.states);
+            numbers = new HashMap<>(snapshot.numbers);
+            uuidsByState = new HashMap<>(snapshot.uuidsByState);
+            uuidsByNumber = new HashMap<>(snapshot.uuidsByNumber);
+            calls = new HashMap<>(snapshot.calls);
+            removed = new LinkedHashMap<>(snapshot.removed);
+            version = snapshot.version + 1;
+            diffBase = snapshot.diffBase;
+        }
+
+        void add(String uuid, VoiceConnection connection, CallInfo call) {
+            connections.put(uuid, connection);
+            calls.put(uuid, call);
+            removed.remove(uuid);
+
+            int state = call.state;
+            states.put(uuid, state);
+            uuidsByState.put(state, with(uuidsByState.get(state), uuid));
+
+            String number = call.number;
+            if (number != null) {
+                numbers.put(uuid, number);
+                uuidsByNumber.put(number, with(uuidsByNumber.get(number), uuid));
+            }
+        }
+
+        void remove(String uuid) {
+            if (connections.remove(uuid) == null) {
+                return;
+            }
+            calls.remove(uuid);
+
+            Integer state = states.remove(uuid);
+            if (state != null) {
+                putOrRemove(uuidsByState, state, without(uuidsByState.get(state), uuid));
+            }
+
+            String number = numbers.remove(uuid);
+            if (number != null) {
+                putOrRemove(uuidsByNumber, number, without(uuidsByNumber.get(number), uuid));
+            }
+        }
+
+        // Remembers the removal for the diffs, forgetting the oldest ones
+        void addRemoved(String uuid) {
+            removed.put(uuid, version);
+
+            Iterator<Map.Entry<String, Long>> iterator = removed.entrySet().iterator();
+            while (removed.size() > MAX_REMOVED) {
+                diffBase = iterator.next().getValue();
+                iterator.remove();
+            }
+        }
+
+        Snapshot build() {
+            return new Snapshot(
+                Collections.unmodifiableMap(connections),
+                Collections.unmodifiableMap(states),
+                Collections.unmodifiableMap(numbers),
+                Collections.unmodifiableMap(uuidsByState),
+                Collections.unmodifiableMap(uuidsByNumber),
+                Collections.unmodifiableMap(calls),
+                Collections.unmodifiableMap(removed),
+                version,
+                diffBase
+            );
+        }
+
+        private static Set<String> with(@Nullable Set<String> uuids, String uuid) {
+            Set<String> result = uuids == null ? new HashSet<String>() : new HashSet<>(uuids);
+            result.add(uuid);
+
+            return Collections.unmodifiableSet(result);
+        }
+
+        @Nullable
+        private static Set<String> without(@Nullable Set<String> uuids, String uuid) {
+            if (uuids == null) {
+                return null;
+            }
+            Set<String> result = new HashSet<>(uuids);
+            result.remove(uuid);
+
+            return result.isEmpty() ? null : Collections.unmodifiableSet(result);
+        }
+
+        private static <K> void putOrRemove(Map<K, Set<String>> index, K key, @Nullable Set<String> uuids) {
+            if (uuids == null) {
+                index.remove(key);
+            } else {
+                index.put(key, uuids);
+            }
+        }
+    }
+}
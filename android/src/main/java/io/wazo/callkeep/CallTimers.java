@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timers attached to a call, all cancelled at once when the call ends.
+ *
+ * Every timer of a call is posted on the main looper with the same token, so {@link #cancel(String)} removes them
+ * with a single `removeCallbacksAndMessages` instead of letting them fire against a call that no longer exists.
+ */
+public class CallTimers {
+    private static class Timer {
+        final String name;
+        Runnable posted;
+
+        Timer(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class Token {
+        final List<Timer> timers = new ArrayList<>();
+    }
+
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+    private static final Map<String, Token> tokens = new HashMap<>();
+    private static int pendingCount = 0;
+    private static long firedCount = 0;
+    private static long cancelledCount = 0;
+
+    public static void schedule(final String uuid, String name, final Runnable runnable, long delayMillis) {
+        final Timer timer = new Timer(name);
+        timer.posted = new Runnable() {
+            @Override
+            public void run() {
+                synchronized (tokens) {
+                    Token token = tokens.get(uuid);
+                    // Cancelled from another thread after being dequeued
+                    if (token == null || !token.timers.remove(timer)) {
+                        return;
+                    }
+                    pendingCount--;
+                    firedCount++;
+                    if (token.timers.isEmpty()) {
+                        tokens.remove(uuid);
+                    }
+                }
+                runnable.run();
+            }
+        };
+
+        Token token;
+        synchronized (tokens) {
+            token = tokens.get(uuid);
+            if (token == null) {
+                token = new Token();
+                tokens.put(uuid, token);
+            }
+            token.timers.add(timer);
+            pendingCount++;
+        }
+
+        CallKeepLog.d("[CallTimers] schedule, uuid: {}, name: {}, delay: {}", uuid, name, delayMillis);
+        handler.postAtTime(timer.posted, token, SystemClock.uptimeMillis() + delayMillis);
+    }
+
+    /**
+     * Cancels every pending timer of the call.
+     */
+    public static void cancel(String uuid) {
+        Token token;
+        int cancelled;
+        synchronized (tokens) {
+            token = tokens.remove(uuid);
+            if (token == null) {
+                return;
+            }
+            cancelled = token.timers.size();
+            token.timers.clear();
+            pendingCount -= cancelled;
+            cancelledCount += cancelled;
+        }
+
+        CallKeepLog.d("[CallTimers] cancel, uuid: {}, pending: {}", uuid, cancelled);
+        handler.removeCallbacksAndMessages(token);
+    }
+
+    /**
+     * Cancels the pending timers of the call scheduled with `name`, other timers of the call are kept.
+     */
+    public static void cancel(String uuid, String name) {
+        List<Timer> cancelled = new ArrayList<>();
+        Token token;
+        synchronized (tokens) {
+            token = tokens.get(uuid);
+            if (token == null) {
+                return;
+            }
+            Iterator<Timer> iterator = token.timers.iterator();
+            while (iterator.hasNext()) {
+                Timer timer = iterator.next();
+                if (timer.name.equals(name)) {
+                    iterator.remove();
+                    cancelled.add(timer);
+                }
+            }
+            if (token.timers.isEmpty()) {
+                tokens.remove(uuid);
+            }
+            pendingCount -= cancelled.size();
+            cancelledCount += cancelled.size();
+        }
+
+        CallKeepLog.d("[CallTimers] cancel, uuid: {}, name: {}, pending: {}", uuid, name, cancelled.size());
+        for (Timer timer : cancelled) {
+            handler.removeCallbacks(timer.posted, token);
+        }
+    }
+
+    /**
+     * @return true when a timer of the call scheduled with `name` did not run nor was cancelled yet.
+     */
+    public static boolean isScheduled(String uuid, String name) {
+        synchronized (tokens) {
+            Token token = tokens.get(uuid);
+            if (token == null) {
+                return false;
+            }
+            for (Timer timer : token.timers) {
+                if (timer.name.equals(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+    public static int getPendingCount() {
+        synchronized (tokens) {
+            return pendingCount;
+        }
+    }
+
+    public static int getCallCount() {
+        synchronized (tokens) {
+            return tokens.size();
+        }
+    }
+
+    public static long getFiredCount() {
+        synchronized (tokens) {
+            return firedCount;
+        }
+    }
+
+    public static long getCancelledCount() {
+        synchronized (tokens) {
+            return cancelledCount;
+        }
+    }
+}
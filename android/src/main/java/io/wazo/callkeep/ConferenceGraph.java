@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package io.wazo.callkeep;
+
+import android.telecom.Connection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Graph of the connections that can be merged into a conference.
+ *
+ * A connection is eligible when it is active or on hold and the app did not exclude it with
+ * {@link #setConferenceable}. Eligible connections are all conferenceable with each other.
+ * Adding, removing or changing the state of a connection only updates the connections whose
+ * conferenceable list actually changed.
+ */
+public class ConferenceGraph {
+    private static class Node {
+        final Connection connection;
+        final Set<String> peers = new LinkedHashSet<>();
+        int state;
+        boolean allowed = true;
+
+        Node(Connection connection, int state) {
+            this.connection = connection;
+            this.state = state;
+        }
+
+        boolean isEligible() {
+            return allowed && (state == Connection.STATE_ACTIVE || state == Connection.STATE_HOLDING);
+        }
+    }
+
+    private final Map<String, Node> nodes = new HashMap<>();
+    // Eligible connections, in insertion order
+    private final Map<String, Node> eligibleNodes = new LinkedHashMap<>();
+
+    public synchronized void add(String uuid, Connection connection, int state) {
+        removeNode(uuid);
+
+        Node node = new Node(connection, state);
+        nodes.put(uuid, node);
+
+        if (node.isEligible()) {
+            link(uuid, node);
+        }
+    }
+
+    public synchronized void remove(String uuid) {
+        removeNode(uuid);
+    }
+
+    public synchronized void updateState(String uuid, int state) {
+        Node node = nodes.get(uuid);
+        if (node == null || node.state == state) {
+            return;
+        }
+
+        node.state = state;
+        refresh(uuid, node);
+    }
+
+    /**
+     * Allows or prevents a call to be merged with the other ones. Calls not in the graph yet (not created) are
+     * ignored; the flag of a created call only takes effect while it is ACTIVE or HOLDING.
+     */
+    public synchronized void setConferenceable(String uuid, boolean conferenceable) {
+        Node node = nodes.get(uuid);
+        if (node == null) {
+            CallKeepLog.w("[ConferenceGraph] setConferenceable, unknown uuid: {}", uuid);
+            return;
+        }
+        if (node.allowed == conferenceable) {
+            return;
+        }
+
+        CallKeepLog.d("[ConferenceGraph] setConferenceable, uuid: {}, conferenceable: {}", uuid, conferenceable);
+        node.allowed = conferenceable;
+        refresh(uuid, node);
+    }
+
+    public synchronized void clear() {
+        nodes.clear();
+        eligibleNodes.clear();
+    }
+
+    private void removeNode(String uuid) {
+        Node node = nodes.remove(uuid);
+        if (node != null && eligibleNodes.containsKey(uuid)) {
+            unlink(uuid, node);
+        }
+    }
+
+    private void refresh(String uuid, Node node) {
+        boolean linked = eligibleNodes.containsKey(uuid);
+        if (node.isEligible() && !linked) {
+            link(uuid, node);
+        } else if (!node.isEligible() && linked) {
+            unlink(uuid, node);
+        }
+    }
+
+    // Connects the node to every eligible node and updates each of them with one more peer.
+    private void link(String uuid, Node node) {
+        for (Map.Entry<String, Node> entry : eligibleNodes.entrySet()) {
+            Node peer = entry.getValue();
+            peer.peers.add(uuid);
+            node.peers.add(entry.getKey());
+            publish(peer);
+        }
+        eligibleNodes.put(uuid, node);
+        publish(node);
+    }
+
+    // Disconnects the node from its peers, only the peers are updated.
+    private void unlink(String uuid, Node node) {
+        eligibleNodes.remove(uuid);
+        for (String peerUuid : node.peers) {
+            Node peer = nodes.get(peerUuid);
+            if (peer != null && peer.peers.remove(uuid)) {
+                publish(peer);
+            }
+        }
+        node.peers.clear();
+
+        if (nodes.containsKey(uuid)) {
+            publish(node);
+        }
+    }
+
+    private void publish(Node node) {
+        List<Connection> connections = new ArrayList<>(node.peers.size());
+        for (String peerUuid : node.peers) {
+            connections.add(nodes.get(peerUuid).connection);
+        }
+        node.connection.setConferenceableConnections(connections);
+    }
+}
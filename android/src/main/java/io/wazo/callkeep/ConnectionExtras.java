@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package io.wazo.callkeep;
+
+import android.os.Bundle;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.wazo.callkeep.Constants.EXTRA_CALL_NUMBER;
+import static io.wazo.callkeep.Constants.EXTRA_CALL_NUMBER_SCHEMA;
+
+/**
+ * Conversion of the ConnectionRequest extras to the attributes sent along with call events.
+ */
+public class ConnectionExtras {
+    public static HashMap<String, String> bundleToMap(Bundle extras) {
+        HashMap<String, String> extrasMap = new HashMap<>();
+
+        for (String key : extras.keySet()) {
+            Object value = extras.get(key);
+            if (value != null) {
+                extrasMap.put(key, value.toString());
+            }
+        }
+        return extrasMap;
+    }
+
+    /**
+     * Puts the number of the call, without its schema (eg: `tel:`), and the schema in separate attributes.
+     */
+    public static void putCallNumber(Map<String, String> extrasMap, String callerNumber) {
+        int schemaIndex = callerNumber.indexOf(':');
+        if (schemaIndex < 0) {
+            extrasMap.put(EXTRA_CALL_NUMBER, callerNumber);
+            return;
+        }
+
+        extrasMap.put(EXTRA_CALL_NUMBER, callerNumber.substring(schemaIndex + 1));
+        extrasMap.put(EXTRA_CALL_NUMBER_SCHEMA, callerNumber.substring(0, schemaIndex));
+    }
+}
@@ -16,6 +16,7 @@ public class Constants {
     public static final String ACTION_ON_SILENCE_INCOMING_CALL = "ACTION_ON_SILENCE_INCOMING_CALL";
     public static final String ACTION_ON_CREATE_CONNECTION_FAILED = "ACTION_ON_CREATE_CONNECTION_FAILED";
     public static final String ACTION_DID_CHANGE_AUDIO_ROUTE = "ACTION_DID_CHANGE_AUDIO_ROUTE";
+    public static final String ACTION_DID_DISPLAY_INCOMING_CALL = "ACTION_DID_DISPLAY_INCOMING_CALL";
 
 
     public static final String EXTRA_CALL_NUMBER = "EXTRA_CALL_NUMBER";
@@ -23,6 +24,7 @@ public class Constants {
     public static final String EXTRA_CALL_UUID = "EXTRA_CALL_UUID";
     public static final String EXTRA_CALLER_NAME = "EXTRA_CALLER_NAME";
     public static final String EXTRA_HAS_VIDEO = "EXTRA_HAS_VIDEO";
+    public static final String EXTRA_PAYLOAD = "EXTRA_PAYLOAD";
     // Can't use telecom.EXTRA_DISABLE_ADD_CALL ...
     public static final String EXTRA_DISABLE_ADD_CALL = "android.telecom.extra.DISABLE_ADD_CALL";
 
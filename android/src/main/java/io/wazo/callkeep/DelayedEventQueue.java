@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package io.wazo.callkeep;
+
+import android.os.SystemClock;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Bounded queue of events waiting for a JS listener.
+ *
+ * Intermediate events (audio route, mute, DTMF ...) expire after `ttl` ms and are evicted first
+ * when the queue is full. Essential events (call started, answered, ended ...) never expire and
+ * are only evicted when the queue contains nothing else.
+ *
+ * When an {@link EventJournal} is attached, pending events are also written to disk and restored
+ * after a process death. Drained events stay in the journal until {@link #acknowledge} is called once they are
+ * delivered, so an event can be delivered twice after a crash but is not lost.
+ */
+public class DelayedEventQueue<T> {
+    public static final int DEFAULT_CAPACITY = 100;
+    public static final long DEFAULT_TTL = 5 * 60 * 1000;
+
+    private static class Entry<T> {
+        final T event;
+        final boolean essential;
+        final long createdAt;
+
+        Entry(T event, boolean essential, long createdAt) {
+            this.event = event;
+            this.essential = essential;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final ArrayDeque<Entry<T>> entries = new ArrayDeque<>();
+    private EventJournal journal;
+    private EventJournal.Codec<T> codec;
+    private int capacity = DEFAULT_CAPACITY;
+    private long ttl = DEFAULT_TTL;
+    private long expiredCount = 0;
+    private long evictedCount = 0;
+
+    public synchronized void configure(int capacity, long ttl) {
+        this.capacity = Math.max(1, capacity);
+        this.ttl = ttl;
+
+        while (entries.size() > this.capacity) {
+            evictOne();
+        }
+    }
+
+    /**
+     * Restores the events left in the journal by a previous process, then journals the new ones.
+     */
+    public synchronized void attachJournal(EventJournal journal, EventJournal.Codec<T> codec) {
+        if (this.journal != null) {
+            return;
+        }
+
+        long now = SystemClock.elapsedRealtime();
+        long wallNow = System.currentTimeMillis();
+        List<EventJournal.Record> records = journal.readAll();
+        ArrayDeque<Entry<T>> current = new ArrayDeque<>(entries);
+        entries.clear();
+
+        for (EventJournal.Record record : records) {
+            long age = Math.max(0, wallNow - record.timestamp);
+            entries.addLast(new Entry<T>(codec.create(record.name, record.data), record.essential, now - age));
+        }
+        entries.addAll(current);
+
+        purgeExpired(now);
+        while (entries.size() > capacity) {
+            evictOne();
+        }
+
+        this.journal = journal;
+        this.codec = codec;
+
+        CallKeepLog.d("[DelayedEventQueue] attachJournal, restored events: {}", records.size());
+        if (!current.isEmpty() || entries.size() != records.size()) {
+            compactJournal();
+        }
+    }
+
+    public synchronized boolean hasJournal() {
+        return journal != null;
+    }
+
+    public synchronized void add(T event, boolean essential) {
+        long now = SystemClock.elapsedRealtime();
+        purgeExpired(now);
+
+        if (entries.size() >= capacity) {
+            evictOne();
+        }
+        Entry<T> entry = new Entry<T>(event, essential, now);
+        entries.addLast(entry);
+
+        if (journal != null && !appendToJournal(entry, now, System.currentTimeMillis())) {
+            compactJournal();
+        }
+    }
+
+    /**
+     * Returns the pending events in order and empties the queue, the journal keeps them until {@link #acknowledge}.
+     */
+    public synchronized List<T> drain() {
+        List<T> events = peek();
+        entries.clear();
+
+        return events;
+    }
+
+    /**
+     * Drops the drained events from the journal, once they are delivered.
+     */
+    public synchronized void acknowledge() {
+        if (journal != null) {
+            compactJournal();
+        }
+    }
+
+    /**
+     * Returns the pending events in order without removing them.
+     */
+    public synchronized List<T> peek() {
+        purgeExpired(SystemClock.elapsedRealtime());
+
+        List<T> events = new ArrayList<T>(entries.size());
+        for (Entry<T> entry : entries) {
+            events.add(entry.event);
+        }
+
+        return events;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        if (journal != null) {
+            journal.reset();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getExpiredCount() {
+        return expiredCount;
+    }
+
+    public synchronized long getEvictedCount() {
+        return evictedCount;
+    }
+
+    public synchronized long getDroppedCount() {
+        return expiredCount + evictedCount;
+    }
+
+    private boolean appendToJournal(Entry<T> entry, long now, long wallNow) {
+        long timestamp = wallNow - (now - entry.createdAt);
+
+        return journal.append(codec.getName(entry.event), codec.getData(entry.event), entry.essential, timestamp);
+    }
+
+    // Rewrite the journal with the pending events only, dropping the expired and evicted ones.
+    private void compactJournal() {
+        long now = SystemClock.elapsedRealtime();
+        long wallNow = System.currentTimeMillis();
+
+        journal.reset();
+        for (Entry<T> entry : entries) {
+            if (!appendToJournal(entry, now, wallNow)) {
+                CallKeepLog.w("[DelayedEventQueue] journal is full, some events will not survive a process death");
+                return;
+            }
+        }
+    }
+
+    private void purgeExpired(long now) {
+        if (ttl <= 0) {
+            return;
+        }
+
+        Iterator<Entry<T>> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            Entry<T> entry = iterator.next();
+            if (!entry.essential && now - entry.createdAt > ttl) {
+                iterator.remove();
+                expiredCount++;
+            }
+        }
+    }
+
+    private void evictOne() {
+        Iterator<Entry<T>> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            if (!iterator.next().essential) {
+                iterator.remove();
+                evictedCount++;
+                return;
+            }
+        }
+
+        // Only essential events left: drop the oldest one
+        if (entries.pollFirst() != null) {
+            evictedCount++;
+        }
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package io.wazo.callkeep;
+
+import android.content.Context;
+import android.os.Bundle;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Array;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped journal of events not delivered to JS yet, so they survive process death.
+ *
+ * Layout: a header (magic, version) followed by records. Each record is framed as
+ * [int length][int crc32][payload] and the journal ends at the first record with a length of 0
+ * or an invalid CRC. The payload is:
+ * [long timestamp][byte essential][string name][bundle data], where strings are [short length][utf-8 bytes],
+ * bundles are [short count] then `count` x [string key][value] and values are [byte type][value]:
+ * strings ('S'), booleans ('Z'), ints ('I'), longs ('J'), doubles ('D'), bundles ('B'), lists and arrays ('L' as
+ * [short count] then `count` x [value], read back as an ArrayList) and nulls in lists ('N').
+ * Other values are written as their `toString()`.
+ *
+ * The length of a record is written last, so a record interrupted by process death is ignored on recovery.
+ */
+public class EventJournal {
+    private static final int MAGIC = 0x524e434b; // RNCK
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int FRAME_SIZE = 8;
+    private static final byte TYPE_STRING = 'S';
+    private static final byte TYPE_BOOLEAN = 'Z';
+    private static final byte TYPE_INT = 'I';
+    private static final byte TYPE_LONG = 'J';
+    private static final byte TYPE_DOUBLE = 'D';
+    private static final byte TYPE_BUNDLE = 'B';
+    private static final byte TYPE_LIST = 'L';
+    private static final byte TYPE_NULL = 'N';
+
+    public static final int DEFAULT_SIZE = 64 * 1024;
+
+    public interface Codec<T> {
+        String getName(T event);
+
+        Bundle getData(T event);
+
+        T create(String name, Bundle data);
+    }
+
+    public static class Record {
+        public final String name;
+        public final Bundle data;
+        public final boolean essential;
+        public final long timestamp;
+
+        Record(String name, Bundle data, boolean essential, long timestamp) {
+            this.name = name;
+            this.data = data;
+            this.essential = essential;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final MappedByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+    private int writePosition = HEADER_SIZE;
+
+    private EventJournal(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Nullable
+    public static EventJournal open(Context context, String name) {
+        File file = new File(context.getNoBackupFilesDir(), name);
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, DEFAULT_SIZE);
+            EventJournal journal = new EventJournal(buffer);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                journal.reset();
+            }
+
+            return journal;
+        } catch (IOException e) {
+            CallKeepLog.w("[EventJournal] unable to open journal {}: {}", name, e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads all valid records and moves the write position after the last one.
+     */
+    public synchronized List<Record> readAll() {
+        List<Record> records = new ArrayList<Record>();
+        int position = HEADER_SIZE;
+
+        while (position + FRAME_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + FRAME_SIZE + length > buffer.capacity()) {
+                break;
+            }
+
+            int checksum = buffer.getInt(position + 4);
+            if (checksum != checksum(position + FRAME_SIZE, length)) {
+                CallKeepLog.w("[EventJournal] corrupted record at {}, ignoring the end of the journal", position);
+                break;
+            }
+
+            records.add(readRecord(position + FRAME_SIZE));
+            position += FRAME_SIZE + length;
+        }
+
+        writePosition = position;
+        terminate(writePosition);
+
+        return records;
+    }
+
+    /**
+     * @return false when there is no room left for the record.
+     */
+    public synchronized boolean append(String name, @Nullable Bundle data, boolean essential, long timestamp) {
+        int start = writePosition + FRAME_SIZE;
+        int position = start;
+
+        try {
+            buffer.position(position);
+            buffer.putLong(timestamp);
+            buffer.put((byte) (essential ? 1 : 0));
+            putString(name);
+            putBundle(data);
+            position = buffer.position();
+        } catch (RuntimeException e) {
+            // BufferOverflowException: no room left
+            terminate(writePosition);
+            return false;
+        }
+
+        int length = position - start;
+        terminate(position);
+        buffer.putInt(writePosition + 4, checksum(start, length));
+        buffer.putInt(writePosition, length);
+        writePosition = position;
+
+        return true;
+    }
+
+    /**
+     * Drops all records, once they are acknowledged.
+     */
+    public synchronized void reset() {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        writePosition = HEADER_SIZE;
+        terminate(writePosition);
+    }
+
+    private void terminate(int position) {
+        if (position + 4 <= buffer.capacity()) {
+            buffer.putInt(position, 0);
+        }
+    }
+
+    private int checksum(int position, int length) {
+        crc.reset();
+        for (int i = position; i < position + length; i++) {
+            crc.update(buffer.get(i));
+        }
+
+        return (int) crc.getValue();
+    }
+
+    private Record readRecord(int position) {
+        buffer.position(position);
+        long timestamp = buffer.getLong();
+        boolean essential = buffer.get() == 1;
+        String name = getString();
+        Bundle data = getBundle();
+
+        return new Record(name, data, essential, timestamp);
+    }
+
+    // Null values of a bundle are skipped
+    private void putBundle(@Nullable Bundle bundle) {
+        int countPosition = buffer.position();
+        short count = 0;
+        buffer.putShort(count);
+
+        if (bundle != null) {
+            for (String key : bundle.keySet()) {
+                Object value = bundle.get(key);
+                if (value == null) {
+                    continue;
+                }
+                putString(key);
+                putValue(value);
+                count++;
+            }
+        }
+        buffer.putShort(countPosition, count);
+    }
+
+    private void putValue(@Nullable Object value) {
+        if (value == null) {
+            buffer.put(TYPE_NULL);
+        } else if (value instanceof Boolean) {
+            buffer.put(TYPE_BOOLEAN);
+            buffer.put((byte) ((Boolean) value ? 1 : 0));
+        } else if (value instanceof Integer) {
+            buffer.put(TYPE_INT);
+            buffer.putInt((Integer) value);
+        } else if (value instanceof Long) {
+            buffer.put(TYPE_LONG);
+            buffer.putLong((Long) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            buffer.put(TYPE_DOUBLE);
+            buffer.putDouble(((Number) value).doubleValue());
+        } else if (value instanceof Bundle) {
+            buffer.put(TYPE_BUNDLE);
+            putBundle((Bundle) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            buffer.put(TYPE_LIST);
+            buffer.putShort((short) list.size());
+            for (Object item : list) {
+                putValue(item);
+            }
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            buffer.put(TYPE_LIST);
+            buffer.putShort((short) length);
+            for (int i = 0; i < length; i++) {
+                putValue(Array.get(value, i));
+            }
+        } else {
+            buffer.put(TYPE_STRING);
+            putString(value.toString());
+        }
+    }
+
+    private Bundle getBundle() {
+        int count = buffer.getShort() & 0xffff;
+        Bundle bundle = new Bundle();
+        for (int i = 0; i < count; i++) {
+            String key = getString();
+            byte type = buffer.get();
+            switch (type) {
+                case TYPE_BOOLEAN:
+                    bundle.putBoolean(key, buffer.get() == 1);
+                    break;
+                case TYPE_INT:
+                    bundle.putInt(key, buffer.getInt());
+                    break;
+                case TYPE_LONG:
+                    bundle.putLong(key, buffer.getLong());
+                    break;
+                case TYPE_DOUBLE:
+                    bundle.putDouble(key, buffer.getDouble());
+                    break;
+                case TYPE_BUNDLE:
+                    bundle.putBundle(key, getBundle());
+                    break;
+                case TYPE_LIST:
+                    bundle.putSerializable(key, getList());
+                    break;
+                default:
+                    bundle.putString(key, getString());
+                    break;
+            }
+        }
+
+        return bundle;
+    }
+
+    private ArrayList<Object> getList() {
+        int count = buffer.getShort() & 0xffff;
+        ArrayList<Object> list = new ArrayList<Object>(count);
+        for (int i = 0; i < count; i++) {
+            byte type = buffer.get();
+            switch (type) {
+                case TYPE_NULL:
+                    list.add(null);
+                    break;
+                case TYPE_BOOLEAN:
+                    list.add(buffer.get() == 1);
+                    break;
+                case TYPE_INT:
+                    list.add(buffer.getInt());
+                    break;
+                case TYPE_LONG:
+                    list.add(buffer.getLong());
+                    break;
+                case TYPE_DOUBLE:
+                    list.add(buffer.getDouble());
+                    break;
+                case TYPE_BUNDLE:
+                    list.add(getBundle());
+                    break;
+                case TYPE_LIST:
+                    list.add(getList());
+                    break;
+                default:
+                    list.add(getString());
+                    break;
+            }
+        }
+
+        return list;
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private String getString() {
+        int length = buffer.getShort() & 0xffff;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import com.facebook.react.jstasks.HeadlessJsTaskRetryPolicy;
+
+import java.util.Random;
+
+/**
+ * Retries a headless task with a delay doubling at each attempt, up to a maximum.
+ *
+ * Half of each delay is random, so the tasks of several calls failing at the same time are not retried together.
+ */
+public class ExponentialBackoffRetryPolicy implements HeadlessJsTaskRetryPolicy {
+    private static final Random random = new Random();
+
+    private final int retryAttempts;
+    private final int delay;
+    private final int maxDelay;
+
+    public ExponentialBackoffRetryPolicy(int retryAttempts, int delay, int maxDelay) {
+        this.retryAttempts = retryAttempts;
+        // A negative delay would make `getDelay` throw
+        this.delay = Math.max(0, delay);
+        this.maxDelay = Math.max(this.delay, maxDelay);
+    }
+
+    @Override
+    public boolean canRetry() {
+        return retryAttempts > 0;
+    }
+
+    @Override
+    public int getDelay() {
+        int half = delay / 2;
+        return half + random.nextInt(half + 1);
+    }
+
+    @Override
+    public HeadlessJsTaskRetryPolicy update() {
+        return new ExponentialBackoffRetryPolicy(retryAttempts - 1, (int) Math.min(2L * delay, maxDelay), maxDelay);
+    }
+
+    @Override
+    public HeadlessJsTaskRetryPolicy copy() {
+        return new ExponentialBackoffRetryPolicy(retryAttempts, delay, maxDelay);
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.content.Context;
+import android.os.SystemClock;
+import androidx.annotation.Nullable;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Always-on recorder of the call control flow: React methods, ConnectionService and Connection callbacks,
+ * call events and events sent to JS.
+ *
+ * Records are written in a memory-mapped file, so the last {@link #CAPACITY} records survive a crash or a process
+ * death, and are exported on demand as a Perfetto trace or as the raw file. Records written before a reboot
+ * get wrong timestamps in the Perfetto trace.
+ *
+ * Layout: a header of {@link #HEADER_SIZE} bytes, [int magic][int version][int record size][int capacity]
+ * [long wall clock ms][long elapsed realtime ns][int name count][int names end] then the names as [short length][utf-8 bytes],
+ * followed by fixed-size records: [long sequence + 1][long elapsed realtime ns][int thread id][short name index]
+ * [byte category][byte uuid length][int value][36 bytes uuid]. The sequence is written first as 0 and last as its
+ * value, so a record interrupted by process death is ignored. Both clocks of the header are sampled again each time
+ * the file is opened, and a corrupted name table resets the file.
+ *
+ * Recording costs an atomic increment and a few absolute writes to the mapping, without allocation.
+ */
+public class FlightRecorder {
+    public static final int CATEGORY_METHOD = 1;
+    public static final int CATEGORY_CALLBACK = 2;
+    public static final int CATEGORY_STATE = 3;
+    public static final int CATEGORY_EVENT = 4;
+    public static final int CATEGORY_EMIT = 5;
+
+    public static final String FORMAT_PERFETTO = "perfetto";
+    public static final String FORMAT_BINARY = "binary";
+
+    private static final String FILE_NAME = "rn-callkeep-flight-recorder";
+    private static final int MAGIC = 0x524e4652; // RNFR
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4096;
+    private static final int NAMES_START = 40;
+    private static final int RECORD_SIZE = 64;
+    private static final int UUID_SIZE = 36;
+    public static final int CAPACITY = 4096;
+    private static final int MASK = CAPACITY - 1;
+    private static final int FILE_SIZE = HEADER_SIZE + CAPACITY * RECORD_SIZE;
+
+    private static final String[] CATEGORIES = { "", "method", "callback", "state", "event", "emit" };
+
+    @Nullable
+    private static volatile MappedByteBuffer buffer = null;
+    @Nullable
+    private static File file = null;
+    private static volatile boolean enabled = true;
+    private static final AtomicLong sequence = new AtomicLong();
+    private static final ConcurrentHashMap<String, Integer> nameIndexes = new ConcurrentHashMap<>();
+    private static final List<String> names = new ArrayList<>();
+    private static int namesEnd = NAMES_START;
+
+    /**
+     * Opens the recorder file of the application, records from a previous process are kept.
+     */
+    public static void start(@Nullable Context context) {
+        if (buffer != null || context == null) {
+            return;
+        }
+
+        // The application context is null while the application is created
+        Context appContext = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+        File directory = appContext.getNoBackupFilesDir();
+        if (directory == null) {
+            return;
+        }
+        open(new File(directory, FILE_NAME));
+    }
+
+    public static synchronized void open(File recorderFile) {
+        if (buffer != null) {
+            return;
+        }
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(recorderFile, "rw")) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION || mapped.getInt(8) != RECORD_SIZE || mapped.getInt(12) != CAPACITY
+                || !restoreNames(mapped)) {
+                reset(mapped);
+                restoreNames(mapped);
+            }
+            restore(mapped);
+
+            file = recorderFile;
+            buffer = mapped;
+            CallKeepLog.d("[FlightRecorder] open, restored records: {}", sequence.get());
+        } catch (IOException e) {
+            CallKeepLog.w("[FlightRecorder] unable to open the recorder: {}", e);
+        }
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    public static boolean isEnabled() {
+        return enabled && buffer != null;
+    }
+
+    /**
+     * @param name constant name of the input or output, eg: `startCall`, names are stored once.
+     * @param value state, route ... or 0.
+     */
+    public static void record(int category, String name, @Nullable String uuid, int value) {
+        MappedByteBuffer mapped = buffer;
+        if (mapped == null || !enabled) {
+            return;
+        }
+
+        Integer index = nameIndexes.get(name);
+        int nameIndex = index != null ? index : addName(mapped, name);
+        if (nameIndex < 0) {
+            return;
+        }
+
+        long seq = sequence.getAndIncrement();
+        int offset = HEADER_SIZE + (int) (seq & MASK) * RECORD_SIZE;
+        int uuidLength = uuid != null ? Math.min(uuid.length(), UUID_SIZE) : 0;
+
+        mapped.putLong(offset, 0);
+        mapped.putLong(offset + 8, SystemClock.elapsedRealtimeNanos());
+        mapped.putInt(offset + 16, (int) Thread.currentThread().getId());
+        mapped.putShort(offset + 20, (short) nameIndex);
+        mapped.put(offset + 22, (byte) category);
+        mapped.put(offset + 23, (byte) uuidLength);
+        mapped.putInt(offset + 24, value);
+        for (int i = 0; i < uuidLength; i++) {
+            mapped.put(offset + 28 + i, (byte) uuid.charAt(i));
+        }
+        mapped.putLong(offset, seq + 1);
+    }
+
+    /**
+     * @return the number of records since the file was created.
+     */
+    public static long getRecordCount() {
+        return sequence.get();
+    }
+
+    /**
+     * Writes the records in `directory`, as a Perfetto / Chrome JSON trace or as a copy of the raw file.
+     *
+     * @return the exported file.
+     */
+    public static synchronized File export(File directory, String format) throws IOException {
+        MappedByteBuffer mapped = buffer;
+        if (mapped == null || file == null) {
+            throw new IOException("Flight recorder not started");
+        }
+
+        if (FORMAT_BINARY.equals(format)) {
+            File exported = new File(directory, FILE_NAME + ".bin");
+            try (FileOutputStream output = new FileOutputStream(exported)) {
+                ByteBuffer content = mapped.duplicate();
+                content.clear();
+                output.getChannel().write(content);
+            }
+
+            return exported;
+        }
+
+        File exported = new File(directory, FILE_NAME + ".json");
+        long wallMillis = mapped.getLong(16);
+        long realtimeNanos = mapped.getLong(24);
+        long end = sequence.get();
+        byte[] uuid = new byte[UUID_SIZE];
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(exported), StandardCharsets.UTF_8)) {
+            writer.write("{\"displayTimeUnit\":\"ns\",\"traceEvents\":[");
+            boolean first = true;
+            for (long seq = Math.max(0, end - CAPACITY); seq < end; seq++) {
+                int offset = HEADER_SIZE + (int) (seq & MASK) * RECORD_SIZE;
+                if (mapped.getLong(offset) != seq + 1) {
+                    continue;
+                }
+
+                long nanos = mapped.getLong(offset + 8);
+                int threadId = mapped.getInt(offset + 16);
+                int nameIndex = mapped.getShort(offset + 20);
+                int category = mapped.get(offset + 22);
+                int uuidLength = mapped.get(offset + 23);
+                int value = mapped.getInt(offset + 24);
+                for (int i = 0; i < uuidLength; i++) {
+                    uuid[i] = mapped.get(offset + 28 + i);
+                }
+
+                // Timestamps in µs since epoch, from the clocks sampled when the file was opened
+                double timestamp = wallMillis * 1000.0 + (nanos - realtimeNanos) / 1000.0;
+                writer.write(first ? "\n" : ",\n");
+                writer.write("{\"ph\":\"i\",\"s\":\"t\",\"pid\":1,\"tid\":" + threadId
+                    + ",\"ts\":" + String.format(Locale.US, "%.3f", timestamp)
+                    + ",\"name\":" + JSONObject.quote(nameIndex < names.size() ? names.get(nameIndex) : "unknown")
+                    + ",\"cat\":\"" + (category > 0 && category < CATEGORIES.length ? CATEGORIES[category] : "unknown") + "\""
+                    + ",\"args\":{\"seq\":" + seq
+                    + ",\"callUUID\":" + JSONObject.quote(new String(uuid, 0, uuidLength, StandardCharsets.US_ASCII))
+                    + ",\"value\":" + value + "}}");
+                first = false;
+            }
+            writer.write("\n]}\n");
+        }
+
+        return exported;
+    }
+
+    // The names are kept in the header so the records of a previous process can be exported
+    private static synchronized int addName(MappedByteBuffer mapped, String name) {
+        Integer index = nameIndexes.get(name);
+        if (index != null) {
+            return index;
+        }
+
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (namesEnd + 2 + bytes.length > HEADER_SIZE) {
+            CallKeepLog.w("[FlightRecorder] no room left for the name: {}", name);
+            return -1;
+        }
+
+        mapped.putShort(namesEnd, (short) bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            mapped.put(namesEnd + 2 + i, bytes[i]);
+        }
+        namesEnd += 2 + bytes.length;
+        names.add(name);
+        mapped.putInt(36, namesEnd);
+        mapped.putInt(32, names.size());
+        nameIndexes.put(name, names.size() - 1);
+
+        return names.size() - 1;
+    }
+
+    private static void reset(MappedByteBuffer mapped) {
+        for (int i = 0; i < FILE_SIZE; i += 8) {
+            mapped.putLong(i, 0);
+        }
+        mapped.putInt(0, MAGIC);
+        mapped.putInt(4, VERSION);
+        mapped.putInt(8, RECORD_SIZE);
+        mapped.putInt(12, CAPACITY);
+        mapped.putInt(32, 0);
+        mapped.putInt(36, NAMES_START);
+    }
+
+    /**
+     * @return false when the name table of the file is corrupted, the names read are then dropped.
+     */
+    private static boolean restoreNames(MappedByteBuffer mapped) {
+        names.clear();
+        nameIndexes.clear();
+
+        int count = mapped.getInt(32);
+        int position = NAMES_START;
+        for (int i = 0; i < count; i++) {
+            int length = position + 2 <= HEADER_SIZE ? mapped.getShort(position) : -1;
+            if (length < 0 || position + 2 + length > HEADER_SIZE) {
+                CallKeepLog.w("[FlightRecorder] corrupted name table, count: {}, at: {}", count, position);
+                names.clear();
+                nameIndexes.clear();
+                return false;
+            }
+
+            byte[] bytes = new byte[length];
+            for (int j = 0; j < length; j++) {
+                bytes[j] = mapped.get(position + 2 + j);
+            }
+            String name = new String(bytes, StandardCharsets.UTF_8);
+            nameIndexes.put(name, names.size());
+            names.add(name);
+            position += 2 + length;
+        }
+        namesEnd = position;
+
+        return count >= 0;
+    }
+
+    private static void restore(MappedByteBuffer mapped) {
+        long last = 0;
+        for (int slot = 0; slot < CAPACITY; slot++) {
+            last = Math.max(last, mapped.getLong(HEADER_SIZE + slot * RECORD_SIZE));
+        }
+        sequence.set(last);
+
+        // Both clocks are sampled together to convert the record timestamps, the elapsed realtime being reset on boot
+        mapped.putLong(16, System.currentTimeMillis());
+        mapped.putLong(24, SystemClock.elapsedRealtimeNanos());
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.Service;
+import android.content.Context;
+import android.os.Build;
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static io.wazo.callkeep.Constants.FOREGROUND_SERVICE_TYPE_MICROPHONE;
+
+/**
+ * Keeps the ConnectionService in the foreground while at least one call is active.
+ *
+ * Each call acquires the service once and releases it when it ends, the service only leaves the foreground with
+ * the last call. The channel and the notification are built once for each `foregroundService` settings, the
+ * settings being immutable a new instance means they changed.
+ */
+public class ForegroundServiceManager {
+    private static final Set<String> activeCalls = new HashSet<>();
+    private static boolean foreground = false;
+    @Nullable
+    private static CallKeepSettings.ForegroundService notificationSettings = null;
+    @Nullable
+    private static Notification notification = null;
+    private static long notificationsBuilt = 0;
+    private static long startCount = 0;
+
+    /**
+     * Starts the foreground service with the first active call, does nothing for a call already counted.
+     */
+    public static synchronized void acquire(Service service, @Nullable String uuid) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            // Foreground services not required before SDK 26
+            return;
+        }
+
+        CallKeepSettings.ForegroundService settings = VoiceConnectionService.getForegroundSettings(null);
+        if (settings == null) {
+            CallKeepLog.w("[ForegroundServiceManager] Not creating foregroundService because not configured");
+            return;
+        }
+
+        activeCalls.add(uuid);
+        if (foreground) {
+            CallKeepLog.d("[ForegroundServiceManager] acquire, already in foreground, uuid: {}, calls: {}", uuid, activeCalls.size());
+            return;
+        }
+
+        CallKeepLog.d("[ForegroundServiceManager] acquire, starting foreground service, uuid: {}", uuid);
+        service.startForeground(FOREGROUND_SERVICE_TYPE_MICROPHONE, getNotification(service, settings));
+        foreground = true;
+        startCount++;
+    }
+
+    /**
+     * Stops the foreground service when the last active call ends.
+     */
+    public static synchronized void release(@Nullable Service service, @Nullable String uuid) {
+        if (!activeCalls.remove(uuid)) {
+            return;
+        }
+
+        if (!activeCalls.isEmpty()) {
+            CallKeepLog.d("[ForegroundServiceManager] release, uuid: {}, calls still active: {}", uuid, activeCalls.size());
+            return;
+        }
+
+        if (foreground && service != null) {
+            CallKeepLog.d("[ForegroundServiceManager] release, stopping foreground service, uuid: {}", uuid);
+            service.stopForeground(FOREGROUND_SERVICE_TYPE_MICROPHONE);
+        }
+        foreground = false;
+    }
+
+    public static synchronized void reset() {
+        CallKeepLog.d("[ForegroundServiceManager] reset, calls: {}", activeCalls.size());
+        activeCalls.clear();
+        foreground = false;
+    }
+
+    public static synchronized boolean isForeground() {
+        return foreground;
+    }
+
+    public static synchronized int getCallCount() {
+        return activeCalls.size();
+    }
+
+    /**
+     * @return the number of notifications built, once for each `foregroundService` settings.
+     */
+    public static synchronized long getNotificationsBuilt() {
+        return notificationsBuilt;
+    }
+
+    /**
+     * @return the number of times the service entered the foreground.
+     */
+    public static synchronized long getStartCount() {
+        return startCount;
+    }
+
+    private static Notification getNotification(Context context, CallKeepSettings.ForegroundService settings) {
+        if (notification != null && notificationSettings == settings) {
+            return notification;
+        }
+
+        String channelId = settings.getChannelId();
+        NotificationChannel chan = new NotificationChannel(channelId, settings.getChannelName(), NotificationManager.IMPORTANCE_NONE);
+        chan.setLockscreenVisibility(Notification.VISIBILITY_PRIVATE);
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        assert manager != null;
+        manager.createNotificationChannel(chan);
+
+        NotificationCompat.Builder notificationBuilder = new NotificationCompat.Builder(context, channelId);
+        notificationBuilder.setOngoing(true)
+            .setContentTitle(settings.getNotificationTitle())
+            .setPriority(NotificationManager.IMPORTANCE_MIN)
+            .setCategory(Notification.CATEGORY_SERVICE);
+
+        if (settings.getNotificationIcon() != null) {
+            notificationBuilder.setSmallIcon(settings.getNotificationIconResource(context));
+        }
+
+        notification = notificationBuilder.build();
+        notificationSettings = settings;
+        notificationsBuilt++;
+        CallKeepLog.d("[ForegroundServiceManager] notification built, channel: {}", channelId);
+
+        return notification;
+    }
+}
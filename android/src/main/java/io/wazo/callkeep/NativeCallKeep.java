@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.graphics.drawable.Icon;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.telecom.PhoneAccount;
+import android.telecom.PhoneAccountHandle;
+import android.telecom.TelecomManager;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+
+import static io.wazo.callkeep.Constants.ACTION_DID_DISPLAY_INCOMING_CALL;
+import static io.wazo.callkeep.Constants.EXTRA_CALLER_NAME;
+import static io.wazo.callkeep.Constants.EXTRA_CALL_NUMBER;
+import static io.wazo.callkeep.Constants.EXTRA_CALL_UUID;
+import static io.wazo.callkeep.Constants.EXTRA_HAS_VIDEO;
+import static io.wazo.callkeep.Constants.EXTRA_PAYLOAD;
+
+/**
+ * Native entry point to display an incoming call without starting React, eg: from a `FirebaseMessagingService`.
+ *
+ * It only needs a context and the stored settings. The `didDisplayIncomingCall` event is kept until JS listens to it.
+ */
+public class NativeCallKeep {
+    public static PhoneAccountHandle getPhoneAccountHandle(Context context) {
+        ComponentName cName = new ComponentName(context, VoiceConnectionService.class);
+
+        return new PhoneAccountHandle(cName, getApplicationName(context));
+    }
+
+    /**
+     * Registers the phone account with the stored settings.
+     */
+    public static void registerPhoneAccount(Context context) {
+        Context appContext = context.getApplicationContext();
+        CallKeepSettings settings = RNCallKeepModule.getSettings(appContext);
+        TelecomManager telecomManager = (TelecomManager) appContext.getSystemService(Context.TELECOM_SERVICE);
+
+        PhoneAccount.Builder builder = new PhoneAccount.Builder(getPhoneAccountHandle(appContext), getApplicationName(appContext));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && settings.isSelfManaged()) {
+            builder.setCapabilities(PhoneAccount.CAPABILITY_SELF_MANAGED);
+        }
+        else {
+            builder.setCapabilities(PhoneAccount.CAPABILITY_CALL_PROVIDER);
+        }
+
+        Icon icon = ResourceResolver.getIcon(appContext, settings.getImageResource(appContext));
+        if (icon != null) {
+            builder.setIcon(icon);
+        }
+
+        telecomManager.registerPhoneAccount(builder.build());
+        PhoneAccountCache.invalidate("registerPhoneAccount");
+    }
+
+    /**
+     * Same as `RNCallKeep.displayIncomingCall` followed by the `didDisplayIncomingCall` event.
+     *
+     * @return false when the phone account is not available or when Telecom refused the call.
+     */
+    public static boolean displayIncomingCall(Context context, String uuid, String number, @Nullable String callerName, boolean hasVideo, @Nullable String payload) {
+        if (!RNCallKeepModule.isConnectionServiceAvailable()) {
+            CallKeepLog.w("[NativeCallKeep] displayIncomingCall ignored due to no ConnectionService");
+            return false;
+        }
+
+        Context appContext = context.getApplicationContext();
+        TelecomManager telecomManager = (TelecomManager) appContext.getSystemService(Context.TELECOM_SERVICE);
+        PhoneAccountHandle handle = getPhoneAccountHandle(appContext);
+
+        PhoneAccount account = PhoneAccountCache.getPhoneAccount(telecomManager, handle);
+        if (account == null) {
+            CallKeepLog.d("[NativeCallKeep] displayIncomingCall, registering the phone account");
+            registerPhoneAccount(appContext);
+            account = PhoneAccountCache.getPhoneAccount(telecomManager, handle);
+        }
+        if (account == null || !account.isEnabled()) {
+            CallKeepLog.w("[NativeCallKeep] displayIncomingCall ignored due to no enabled phone account, uuid: {}", uuid);
+            return false;
+        }
+
+        CallKeepLog.d("[NativeCallKeep] displayIncomingCall, uuid: {}, number: {}, callerName: {}, hasVideo: {}", uuid, number, callerName, hasVideo);
+        CallMetrics.mark(uuid, CallMetrics.MARK_DISPLAY_INCOMING_CALL);
+
+        try {
+            addNewIncomingCall(telecomManager, handle, uuid, number, callerName, hasVideo);
+        } catch (SecurityException e) {
+            CallKeepLog.w("[NativeCallKeep] displayIncomingCall, addNewIncomingCall failed: {}", e);
+            return false;
+        }
+
+        HashMap<String, String> attributes = new HashMap<>();
+        attributes.put(EXTRA_CALL_UUID, uuid);
+        attributes.put(EXTRA_CALL_NUMBER, number);
+        attributes.put(EXTRA_CALLER_NAME, callerName);
+        attributes.put(EXTRA_HAS_VIDEO, String.valueOf(hasVideo));
+        if (payload != null) {
+            attributes.put(EXTRA_PAYLOAD, payload);
+        }
+        VoiceConnectionService.postCallEvent(appContext, new CallEvent(ACTION_DID_DISPLAY_INCOMING_CALL, attributes));
+
+        return true;
+    }
+
+    static void addNewIncomingCall(TelecomManager telecomManager, PhoneAccountHandle handle, String uuid, String number, @Nullable String callerName, boolean hasVideo) {
+        Bundle extras = new Bundle();
+        Uri uri = Uri.fromParts(PhoneAccount.SCHEME_TEL, number, null);
+
+        extras.putParcelable(TelecomManager.EXTRA_INCOMING_CALL_ADDRESS, uri);
+        extras.putString(EXTRA_CALLER_NAME, callerName);
+        extras.putString(EXTRA_CALL_UUID, uuid);
+        extras.putString(EXTRA_HAS_VIDEO, String.valueOf(hasVideo));
+
+        telecomManager.addNewIncomingCall(handle, extras);
+    }
+
+    static String getApplicationName(Context appContext) {
+        ApplicationInfo applicationInfo = appContext.getApplicationInfo();
+        int stringId = applicationInfo.labelRes;
+
+        return stringId == 0 ? applicationInfo.nonLocalizedLabel.toString() : appContext.getString(stringId);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.SystemClock;
+import android.telecom.PhoneAccount;
+import android.telecom.PhoneAccountHandle;
+import android.telecom.TelecomManager;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the phone account and of the permission checks, both are binder calls to system services.
+ *
+ * Nearly every React method checks them. {@link #invalidate} is called when the account is registered, when
+ * permissions are granted and when the app comes back to the foreground, eg: from the phone account settings.
+ * Telecom only broadcasts the phone account changes to the default dialer, so the account also expires after
+ * {@link #ACCOUNT_TTL_MS}: a change made while the app is in the background is seen within a few seconds.
+ */
+public class PhoneAccountCache {
+    public static final long ACCOUNT_TTL_MS = 5000;
+
+    private static class CachedAccount {
+        final PhoneAccountHandle handle;
+        final PhoneAccount account;
+        final long cachedAt;
+
+        CachedAccount(PhoneAccountHandle handle, @Nullable PhoneAccount account, long cachedAt) {
+            this.handle = handle;
+            this.account = account;
+            this.cachedAt = cachedAt;
+        }
+    }
+
+    private static final Map<String, Boolean> permissions = new ConcurrentHashMap<>();
+    private static volatile CachedAccount cachedAccount = null;
+    private static final AtomicLong binderCallsSaved = new AtomicLong();
+
+    public static boolean hasPermission(Context context, String permission) {
+        Boolean granted = permissions.get(permission);
+        if (granted != null) {
+            binderCallsSaved.incrementAndGet();
+            return granted;
+        }
+
+        granted = ContextCompat.checkSelfPermission(context, permission) == PackageManager.PERMISSION_GRANTED;
+        permissions.put(permission, granted);
+
+        return granted;
+    }
+
+    @Nullable
+    public static PhoneAccount getPhoneAccount(TelecomManager telecomManager, PhoneAccountHandle handle) {
+        CachedAccount cached = cachedAccount;
+        long now = SystemClock.elapsedRealtime();
+        if (cached != null && cached.handle.equals(handle) && now - cached.cachedAt < ACCOUNT_TTL_MS) {
+            binderCallsSaved.incrementAndGet();
+            return cached.account;
+        }
+
+        PhoneAccount account = telecomManager.getPhoneAccount(handle);
+        cachedAccount = new CachedAccount(handle, account, now);
+
+        return account;
+    }
+
+    public static void invalidate(String reason) {
+        CallKeepLog.d("[PhoneAccountCache] invalidate, reason: {}", reason);
+        permissions.clear();
+        cachedAccount = null;
+    }
+
+    /**
+     * @return the number of system service calls answered from the cache.
+     */
+    public static long getBinderCallsSaved() {
+        return binderCallsSaved.get();
+    }
+}
@@ -27,6 +27,7 @@ import com.facebook.react.bridge.Arguments;
 import com.facebook.react.jstasks.HeadlessJsTaskConfig;
 import com.facebook.react.jstasks.HeadlessJsTaskRetryPolicy;
 import com.facebook.react.jstasks.LinearCountingRetryPolicy;
+import com.facebook.react.jstasks.NoRetryPolicy;
 
 import static io.wazo.callkeep.Constants.EXTRA_CALLER_NAME;
 import static io.wazo.callkeep.Constants.EXTRA_CALL_NUMBER;
@@ -39,18 +40,37 @@ public class RNCallKeepBackgroundMessagingService extends HeadlessJsTaskService
   protected @Nullable
   HeadlessJsTaskConfig getTaskConfig(Intent intent) {
     Bundle extras = intent.getExtras();
-
-    HeadlessJsTaskRetryPolicy retryPolicy = new LinearCountingRetryPolicy(
-      5, // Max number of retry attempts
-      500 // Delay between each retry attempt
-    );
+    CallKeepSettings.HeadlessTask settings = RNCallKeepModule.getSettings(this).getHeadlessTask();
 
     return new HeadlessJsTaskConfig(
       "RNCallKeepBackgroundMessage",
       Arguments.fromBundle(extras),
-      60000,
+      settings.getTimeout(),
       false,
-      retryPolicy
+      getRetryPolicy(settings)
     );
   }
+
+  private static HeadlessJsTaskRetryPolicy getRetryPolicy(CallKeepSettings.HeadlessTask settings) {
+    switch (settings.getRetryPolicy()) {
+      case CallKeepSettings.HeadlessTask.RETRY_NONE:
+        return NoRetryPolicy.INSTANCE;
+      case CallKeepSettings.HeadlessTask.RETRY_EXPONENTIAL:
+        return new ExponentialBackoffRetryPolicy(settings.getMaxRetries(), settings.getRetryDelay(), settings.getMaxRetryDelay());
+      default:
+        return new LinearCountingRetryPolicy(settings.getMaxRetries(), settings.getRetryDelay());
+    }
+  }
+
+  @Override
+  public void onHeadlessJsTaskStart(int taskId) {
+    super.onHeadlessJsTaskStart(taskId);
+    WakeUpCoordinator.onTaskStarted(taskId);
+  }
+
+  @Override
+  public void onHeadlessJsTaskFinish(int taskId) {
+    WakeUpCoordinator.onTaskFinished(taskId);
+    super.onHeadlessJsTaskFinish(taskId);
+  }
 }
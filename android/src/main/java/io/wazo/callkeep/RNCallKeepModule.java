@@ -19,28 +19,23 @@ package io.wazo.callkeep;
 
 import android.Manifest;
 import android.app.Activity;
-import android.content.BroadcastReceiver;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.SharedPreferences;
-import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.content.res.Resources;
 import android.graphics.drawable.BitmapDrawable;
-import android.graphics.drawable.Icon;
-import android.media.AudioDeviceInfo;
-import android.media.AudioManager;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.WindowManager;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import android.telecom.CallAudioState;
 import android.telecom.Connection;
 import android.telecom.DisconnectCause;
@@ -48,10 +43,10 @@ import android.telecom.PhoneAccount;
 import android.telecom.PhoneAccountHandle;
 import android.telecom.TelecomManager;
 import android.telephony.TelephonyManager;
-import android.util.Log;
 
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Dynamic;
+import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
@@ -60,12 +55,12 @@ import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
-import com.facebook.react.bridge.WritableNativeArray;
-import com.facebook.react.bridge.WritableNativeMap;
-import com.facebook.react.HeadlessJsTaskService;
+import com.facebook.react.common.LifecycleState;
 import com.facebook.react.modules.core.DeviceEventManagerModule.RCTDeviceEventEmitter;
 import com.facebook.react.modules.permissions.PermissionsModule;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -73,8 +68,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import org.json.JSONObject;
 import org.json.JSONException;
 
 import static androidx.core.app.ActivityCompat.requestPermissions;
@@ -83,6 +78,7 @@ import static io.wazo.callkeep.Constants.EXTRA_CALLER_NAME;
 import static io.wazo.callkeep.Constants.EXTRA_CALL_UUID;
 import static io.wazo.callkeep.Constants.EXTRA_CALL_NUMBER;
 import static io.wazo.callkeep.Constants.EXTRA_HAS_VIDEO;
+import static io.wazo.callkeep.Constants.EXTRA_PAYLOAD;
 import static io.wazo.callkeep.Constants.ACTION_END_CALL;
 import static io.wazo.callkeep.Constants.ACTION_ANSWER_CALL;
 import static io.wazo.callkeep.Constants.ACTION_MUTE_CALL;
@@ -93,6 +89,7 @@ import static io.wazo.callkeep.Constants.ACTION_UNHOLD_CALL;
 import static io.wazo.callkeep.Constants.ACTION_ONGOING_CALL;
 import static io.wazo.callkeep.Constants.ACTION_AUDIO_SESSION;
 import static io.wazo.callkeep.Constants.ACTION_CHECK_REACHABILITY;
+import static io.wazo.callkeep.Constants.ACTION_DID_DISPLAY_INCOMING_CALL;
 import static io.wazo.callkeep.Constants.ACTION_WAKE_APP;
 import static io.wazo.callkeep.Constants.ACTION_SHOW_INCOMING_CALL_UI;
 import static io.wazo.callkeep.Constants.ACTION_ON_SILENCE_INCOMING_CALL;
@@ -114,21 +111,137 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
         Manifest.permission.RECORD_AUDIO
     };
 
-    private static final String TAG = "RNCallKeep";
     private static TelecomManager telecomManager;
     private static TelephonyManager telephonyManager;
     private static Promise hasPhoneAccountPromise;
     private ReactApplicationContext reactContext;
     public static PhoneAccountHandle handle;
-    private boolean isReceiverRegistered = false;
-    private VoiceBroadcastReceiver voiceBroadcastReceiver;
-    private static WritableMap _settings;
-    private WritableNativeArray delayedEvents;
+    private boolean isListenerRegistered = false;
+    private VoiceEventListener voiceEventListener;
+    private static volatile CallKeepSettings _settings;
+    private final DelayedEventQueue<Bundle> delayedEvents = new DelayedEventQueue<Bundle>();
     private boolean hasListeners = false;
 
+    // Events kept over intermediate ones (audio route, mute, DTMF ...) when JS is not listening
+    private static final List<String> ESSENTIAL_EVENTS = Arrays.asList(
+        "RNCallKeepDidDisplayIncomingCall",
+        "RNCallKeepDidReceiveStartCallAction",
+        "RNCallKeepPerformAnswerCallAction",
+        "RNCallKeepPerformEndCallAction",
+        "RNCallKeepOnIncomingConnectionFailed"
+    );
+
+    private static final EventJournal.Codec<Bundle> DELAYED_EVENT_CODEC = new EventJournal.Codec<Bundle>() {
+        @Override
+        public String getName(Bundle event) {
+            return event.getString("name");
+        }
+
+        @Override
+        public Bundle getData(Bundle event) {
+            return event.getBundle("data");
+        }
+
+        @Override
+        public Bundle create(String name, Bundle data) {
+            Bundle event = new Bundle();
+            event.putString("name", name);
+            event.putBundle("data", data);
+
+            return event;
+        }
+    };
+
+    // Events emitted during `eventBatchingWindow` are sent to JS as a single `RNCallKeepDidReceiveEvents` event
+    private static final String EVENT_BATCH_NAME = "RNCallKeepDidReceiveEvents";
+    private int eventBatchingWindow = 0;
+    private List<WritableMap> pendingEventBatch;
+    private final Object eventBatchLock = new Object();
+    private final Handler eventBatchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable flushEventBatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flushEventBatch();
+        }
+    };
+
+    // Version of the calls last sent with `RNCallKeepDidChangeActiveCalls`, only used on the main thread
+    private long activeCallsVersion = 0;
+    private final AtomicBoolean activeCallsFlushPending = new AtomicBoolean(false);
+
+    // Sends each recorded stage to JS when `callMetricsEvents` is set
+    private final CallMetrics.Listener callMetricsListener = new CallMetrics.Listener() {
+        @Override
+        public void onStageRecorded(String uuid, String stage, long durationNanos) {
+            WritableMap args = Arguments.createMap();
+            args.putString("callUUID", uuid);
+            args.putString("stage", stage);
+            args.putDouble("duration", durationNanos / 1000000.0);
+            sendEventToJS("RNCallKeepDidRecordCallMetric", args);
+        }
+    };
+
+    // Changes of the calls are gathered and sent once per main looper turn
+    private final CallRegistry.Listener callRegistryListener = new CallRegistry.Listener() {
+        @Override
+        public void onCallsChanged(long version) {
+            if (activeCallsFlushPending.compareAndSet(false, true)) {
+                eventBatchHandler.post(flushActiveCallsRunnable);
+            }
+        }
+    };
+
+    private final Runnable flushActiveCallsRunnable = new Runnable() {
+        @Override
+        public void run() {
+            activeCallsFlushPending.set(false);
+            CallRegistry.Snapshot snapshot = VoiceConnectionService.getCallRegistry().snapshot();
+            // Not queued while JS is not listening: it reads the current calls with `getActiveCalls`
+            if (snapshot.getVersion() == activeCallsVersion || reactContext == null || !reactContext.hasActiveCatalystInstance() || !hasListeners) {
+                return;
+            }
+
+            WritableMap changes = activeCallsToMap(snapshot, activeCallsVersion);
+            activeCallsVersion = snapshot.getVersion();
+            sendEventToJS("RNCallKeepDidChangeActiveCalls", changes);
+        }
+    };
+
+    // Not queued while JS is not listening: it reads the current routes with `getAudioRoutes`
+    private final AudioRouteModel.Listener audioRoutesListener = new AudioRouteModel.Listener() {
+        @Override
+        public void onRoutesChanged(List<String> routes, List<String> added, List<String> removed) {
+            if (reactContext == null || !reactContext.hasActiveCatalystInstance() || !hasListeners) {
+                return;
+            }
+
+            WritableMap args = Arguments.createMap();
+            args.putArray("routes", audioRoutesToArray(routes, AudioRouteModel.getSelectedRoute(reactContext)));
+            args.putArray("added", stringsToArray(added));
+            args.putArray("removed", stringsToArray(removed));
+            sendEventToJS("RNCallKeepDidChangeAvailableAudioRoutes", args);
+        }
+    };
+
+    // The user may have enabled the phone account or granted permissions in the settings
+    private final LifecycleEventListener lifecycleEventListener = new LifecycleEventListener() {
+        @Override
+        public void onHostResume() {
+            PhoneAccountCache.invalidate("onHostResume");
+        }
+
+        @Override
+        public void onHostPause() {
+        }
+
+        @Override
+        public void onHostDestroy() {
+        }
+    };
+
     public static RNCallKeepModule getInstance(ReactApplicationContext reactContext, boolean realContext) {
         if (instance == null) {
-            Log.d(TAG, "[RNCallKeepModule] getInstance : " + (reactContext == null ? "null" : "ok"));
+            CallKeepLog.d("[RNCallKeepModule] getInstance : {}", (reactContext == null ? "null" : "ok"));
             instance = new RNCallKeepModule(reactContext);
         }
         if (realContext) {
@@ -137,27 +250,52 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
         return instance;
     }
 
-    public static WritableMap getSettings(@Nullable Context context) {
-        if (_settings == null) {
-            fetchStoredSettings(context);
+    public static CallKeepSettings getSettings(@Nullable Context context) {
+        CallKeepSettings settings = _settings;
+        if (settings == null) {
+            settings = fetchStoredSettings(context);
         }
 
-        return _settings;
+        return settings;
     }
 
     private RNCallKeepModule(ReactApplicationContext reactContext) {
         super(reactContext);
-        Log.d(TAG, "[RNCallKeepModule] constructor");
+        CallKeepLog.d("[RNCallKeepModule] constructor");
 
         this.reactContext = reactContext;
-        delayedEvents = new WritableNativeArray();
-        this.registerReceiver();
-        this.fetchStoredSettings(reactContext);
+        if (reactContext != null) {
+            AppStateTracker.install(reactContext, reactContext.getCurrentActivity(), reactContext.getLifecycleState() == LifecycleState.RESUMED);
+            AudioRouteModel.start(reactContext);
+            FlightRecorder.start(reactContext);
+            reactContext.addLifecycleEventListener(lifecycleEventListener);
+        }
+        this.restoreDelayedEvents();
+        this.registerEventListener();
+        VoiceConnectionService.getCallRegistry().setListener(callRegistryListener);
+        AudioRouteModel.setListener(audioRoutesListener);
+        _settings = fetchStoredSettings(reactContext);
+        this.applySettings();
+    }
+
+    // Events not delivered to JS before the process was killed are sent on the next `startObserving`
+    private void restoreDelayedEvents() {
+        Context context = this.getAppContext();
+        if (context == null) {
+            return;
+        }
+
+        VoiceConnectionService.restoreDelayedEvents(context);
+
+        EventJournal journal = EventJournal.open(context, "rn-callkeep-events");
+        if (journal != null) {
+            delayedEvents.attachJournal(journal, DELAYED_EVENT_CODEC);
+        }
     }
 
     private boolean isSelfManaged() {
         try {
-            return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && _settings.hasKey("selfManaged") && _settings.getBoolean("selfManaged");
+            return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && _settings.isSelfManaged();
         } catch (Exception e) {
             return false;
         }
@@ -169,7 +307,7 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
     }
 
     public void setContext(ReactApplicationContext reactContext) {
-        Log.d(TAG, "[RNCallKeepModule] updating react context");
+        CallKeepLog.d("[RNCallKeepModule] updating react context");
         this.reactContext = reactContext;
     }
 
@@ -178,7 +316,7 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
     }
 
     public void reportNewIncomingCall(String uuid, String number, String callerName, boolean hasVideo, String payload) {
-        Log.d(TAG, "[RNCallKeepModule] reportNewIncomingCall, uuid: " + uuid + ", number: " + number + ", callerName: " + callerName);
+        CallKeepLog.d("[RNCallKeepModule] reportNewIncomingCall, uuid: {}, number: {}, callerName: {}", uuid, number, callerName);
 
         this.displayIncomingCall(uuid, number, callerName, hasVideo);
 
@@ -195,34 +333,55 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
     }
 
     public void startObserving() {
-        int count = delayedEvents.size();
-        Log.d(TAG, "[RNCallKeepModule] startObserving, event count: " + count);
+        List<Bundle> events = delayedEvents.drain();
+        int count = events.size();
+        CallKeepLog.d("[RNCallKeepModule] startObserving, event count: {}, dropped: {}", count, delayedEvents.getDroppedCount());
         if (count > 0) {
-            this.reactContext.getJSModule(RCTDeviceEventEmitter.class).emit("RNCallKeepDidLoadWithEvents", delayedEvents);
-            delayedEvents = new WritableNativeArray();
+            this.reactContext.getJSModule(RCTDeviceEventEmitter.class).emit("RNCallKeepDidLoadWithEvents", delayedEventsToArray(events));
         }
+        delayedEvents.acknowledge();
     }
 
     public void initializeTelecomManager() {
         Context context = this.getAppContext();
         if (context == null) {
-            Log.w(TAG, "[RNCallKeepModule][initializeTelecomManager] no react context found.");
+            CallKeepLog.w("[RNCallKeepModule][initializeTelecomManager] no react context found.");
             return;
         }
-        ComponentName cName = new ComponentName(context, VoiceConnectionService.class);
-        String appName = this.getApplicationName(context);
-
-        handle = new PhoneAccountHandle(cName, appName);
+        handle = NativeCallKeep.getPhoneAccountHandle(context);
         telecomManager = (TelecomManager) context.getSystemService(Context.TELECOM_SERVICE);
     }
 
     @ReactMethod
     public void setSettings(ReadableMap options) {
-        Log.d(TAG, "[RNCallKeepModule] setSettings : " + options);
+        CallKeepLog.d("[RNCallKeepModule] setSettings : {}", options);
         if (options == null) {
             return;
         }
-        _settings = storeSettings(options);
+        try {
+            storeSettings(CallKeepSettings.fromReadableMap(options));
+        } catch (JSONException e) {
+            CallKeepLog.w("[RNCallKeepModule][setSettings] exception: {}", e);
+        }
+    }
+
+    private void applySettings() {
+        CallKeepSettings settings = _settings;
+        if (settings == null) {
+            return;
+        }
+
+        CallKeepLog.setLevel(settings.getLogLevel());
+        FlightRecorder.setEnabled(settings.isFlightRecorder());
+        eventBatchingWindow = settings.getEventBatchingWindow();
+        ResourceResolver.preload(getAppContext(), settings);
+
+        int capacity = settings.getDelayedEventsCapacity();
+        long ttl = settings.getDelayedEventsTtl();
+        delayedEvents.configure(capacity, ttl);
+        VoiceConnectionService.getDelayedEvents().configure(capacity, ttl);
+
+        CallMetrics.setListener(settings.isCallMetricsEvents() ? callMetricsListener : null);
     }
 
     @ReactMethod
@@ -237,7 +396,7 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void setup(ReadableMap options) {
-        Log.d(TAG, "[RNCallKeepModule] setup : " + options);
+        CallKeepLog.d("[RNCallKeepModule] setup : {}", options);
 
         VoiceConnectionService.setAvailable(false);
         VoiceConnectionService.setInitialized(true);
@@ -245,16 +404,16 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
         if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             if (isSelfManaged()) {
-                Log.d(TAG, "[RNCallKeepModule] API Version supports self managed, and is enabled in setup");
+                CallKeepLog.d("[RNCallKeepModule] API Version supports self managed, and is enabled in setup");
             }
             else {
-                Log.d(TAG, "[RNCallKeepModule] API Version supports self managed, but it is not enabled in setup");
+                CallKeepLog.d("[RNCallKeepModule] API Version supports self managed, but it is not enabled in setup");
             }
         }
 
         // If we're running in self managed mode we need fewer permissions.
         if(isSelfManaged()) {
-            Log.d(TAG, "[RNCallKeepModule] setup, adding RECORD_AUDIO in permissions in self managed");
+            CallKeepLog.d("[RNCallKeepModule] setup, adding RECORD_AUDIO in permissions in self managed");
             permissions = new String[]{ Manifest.permission.RECORD_AUDIO };
         }
 
@@ -271,14 +430,14 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
         setSettings(options);
 
         if (!isConnectionServiceAvailable()) {
-            Log.w(TAG, "[RNCallKeepModule] registerPhoneAccount ignored due to no ConnectionService");
+            CallKeepLog.w("[RNCallKeepModule] registerPhoneAccount ignored due to no ConnectionService");
             return;
         }
 
-        Log.d(TAG, "[RNCallKeepModule] registerPhoneAccount");
+        CallKeepLog.d("[RNCallKeepModule] registerPhoneAccount");
         Context context = this.getAppContext();
         if (context == null) {
-            Log.w(TAG, "[RNCallKeepModule][registerPhoneAccount] no react context found.");
+            CallKeepLog.w("[RNCallKeepModule][registerPhoneAccount] no react context found.");
             return;
         }
 
@@ -288,11 +447,11 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void registerEvents() {
         if (!isConnectionServiceAvailable()) {
-            Log.w(TAG, "[RNCallKeepModule] registerEvents ignored due to no ConnectionService");
+            CallKeepLog.w("[RNCallKeepModule] registerEvents ignored due to no ConnectionService");
             return;
         }
 
-        Log.d(TAG, "[RNCallKeepModule] registerEvents");
+        CallKeepLog.d("[RNCallKeepModule] registerEvents");
 
         this.hasListeners = true;
         this.startObserving();
@@ -301,7 +460,7 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void unregisterEvents() {
-        Log.d(TAG, "[RNCallKeepModule] unregisterEvents");
+        CallKeepLog.d("[RNCallKeepModule] unregisterEvents");
 
         this.hasListeners = false;
     }
@@ -313,35 +472,30 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void displayIncomingCall(String uuid, String number, String callerName, boolean hasVideo) {
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "displayIncomingCall", uuid, hasVideo ? 1 : 0);
         if (!isConnectionServiceAvailable() || !hasPhoneAccount()) {
-            Log.w(TAG, "[RNCallKeepModule] displayIncomingCall ignored due to no ConnectionService or no phone account");
+            CallKeepLog.w("[RNCallKeepModule] displayIncomingCall ignored due to no ConnectionService or no phone account");
             return;
         }
 
-        Log.d(TAG, "[RNCallKeepModule] displayIncomingCall, uuid: " + uuid + ", number: " + number + ", callerName: " + callerName + ", hasVideo: " + hasVideo);
+        CallKeepLog.d("[RNCallKeepModule] displayIncomingCall, uuid: {}, number: {}, callerName: {}, hasVideo: {}", uuid, number, callerName, hasVideo);
+        CallMetrics.mark(uuid, CallMetrics.MARK_DISPLAY_INCOMING_CALL);
 
-        Bundle extras = new Bundle();
-        Uri uri = Uri.fromParts(PhoneAccount.SCHEME_TEL, number, null);
-
-        extras.putParcelable(TelecomManager.EXTRA_INCOMING_CALL_ADDRESS, uri);
-        extras.putString(EXTRA_CALLER_NAME, callerName);
-        extras.putString(EXTRA_CALL_UUID, uuid);
-        extras.putString(EXTRA_HAS_VIDEO, String.valueOf(hasVideo));
-
-        telecomManager.addNewIncomingCall(handle, extras);
+        NativeCallKeep.addNewIncomingCall(telecomManager, handle, uuid, number, callerName, hasVideo);
     }
 
     @ReactMethod
     public void answerIncomingCall(String uuid) {
-        Log.d(TAG, "[RNCallKeepModule] answerIncomingCall, uuid: " + uuid);
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "answerIncomingCall", uuid, 0);
+        CallKeepLog.d("[RNCallKeepModule] answerIncomingCall, uuid: {}", uuid);
         if (!isConnectionServiceAvailable() || !hasPhoneAccount()) {
-            Log.w(TAG, "[RNCallKeepModule] answerIncomingCall ignored due to no ConnectionService or no phone account");
+            CallKeepLog.w("[RNCallKeepModule] answerIncomingCall ignored due to no ConnectionService or no phone account");
             return;
         }
 
         Connection conn = VoiceConnectionService.getConnection(uuid);
         if (conn == null) {
-            Log.w(TAG, "[RNCallKeepModule] answerIncomingCall ignored because no connection found, uuid: " + uuid);
+            CallKeepLog.w("[RNCallKeepModule] answerIncomingCall ignored because no connection found, uuid: {}", uuid);
             return;
         }
 
@@ -355,10 +509,15 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void startCall(String uuid, String number, String callerName, boolean hasVideo) {
-        Log.d(TAG, "[RNCallKeepModule] startCall called, uuid: " + uuid + ", number: " + number + ", callerName: " + callerName);
-
-        if (!isConnectionServiceAvailable() || !hasPhoneAccount() || !hasPermissions() || number == null) {
-            Log.w(TAG, "[RNCallKeepModule] startCall ignored: " + isConnectionServiceAvailable() + ", " + hasPhoneAccount() + ", " + hasPermissions() + ", " + number);
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "startCall", uuid, hasVideo ? 1 : 0);
+        CallKeepLog.d("[RNCallKeepModule] startCall called, uuid: {}, number: {}, callerName: {}", uuid, number, callerName);
+        CallMetrics.mark(uuid, CallMetrics.MARK_START_CALL);
+
+        boolean isConnectionServiceAvailable = isConnectionServiceAvailable();
+        boolean hasPhoneAccount = isConnectionServiceAvailable && hasPhoneAccount();
+        boolean hasPermissions = hasPhoneAccount && hasPermissions();
+        if (!hasPermissions || number == null) {
+            CallKeepLog.w("[RNCallKeepModule] startCall ignored: {}, {}, {}, {}", isConnectionServiceAvailable, hasPhoneAccount, hasPermissions, number);
             return;
         }
 
@@ -374,45 +533,47 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
         extras.putParcelable(TelecomManager.EXTRA_PHONE_ACCOUNT_HANDLE, handle);
         extras.putParcelable(TelecomManager.EXTRA_OUTGOING_CALL_EXTRAS, callExtras);
 
-        Log.d(TAG, "[RNCallKeepModule] startCall, uuid: " + uuid);
+        CallKeepLog.d("[RNCallKeepModule] startCall, uuid: {}", uuid);
 
+        CallMetrics.mark(uuid, CallMetrics.MARK_PLACE_CALL);
         telecomManager.placeCall(uri, extras);
     }
 
     @ReactMethod
     public void endCall(String uuid) {
-        Log.d(TAG, "[RNCallKeepModule] endCall called, uuid: " + uuid);
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "endCall", uuid, 0);
+        CallKeepLog.d("[RNCallKeepModule] endCall called, uuid: {}", uuid);
         if (!isConnectionServiceAvailable() || !hasPhoneAccount()) {
-           Log.w(TAG, "[RNCallKeepModule] endCall ignored due to no ConnectionService or no phone account");
+           CallKeepLog.w("[RNCallKeepModule] endCall ignored due to no ConnectionService or no phone account");
             return;
         }
 
         Connection conn = VoiceConnectionService.getConnection(uuid);
         if (conn == null) {
-            Log.w(TAG, "[RNCallKeepModule] endCall ignored because no connection found, uuid: " + uuid);
+            CallKeepLog.w("[RNCallKeepModule] endCall ignored because no connection found, uuid: {}", uuid);
             return;
         }
         conn.onDisconnect();
 
-        Log.d(TAG, "[RNCallKeepModule] endCall executed, uuid: " + uuid);
+        CallKeepLog.d("[RNCallKeepModule] endCall executed, uuid: {}", uuid);
     }
 
     @ReactMethod
     public void endAllCalls() {
-        Log.d(TAG, "[RNCallKeepModule] endAllCalls called");
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "endAllCalls", null, 0);
+        CallKeepLog.d("[RNCallKeepModule] endAllCalls called");
         if (!isConnectionServiceAvailable() || !hasPhoneAccount()) {
-            Log.w(TAG, "[RNCallKeepModule] endAllCalls ignored due to no ConnectionService or no phone account");
+            CallKeepLog.w("[RNCallKeepModule] endAllCalls ignored due to no ConnectionService or no phone account");
             return;
         }
 
-        ArrayList<Map.Entry<String, VoiceConnection>> connections =
-            new ArrayList<Map.Entry<String, VoiceConnection>>(VoiceConnectionService.currentConnections.entrySet());
-        for (Map.Entry<String, VoiceConnection> connectionEntry : connections) {
-            Connection connectionToEnd = connectionEntry.getValue();
+        // Iterate over a snapshot: each disconnection removes its connection from the registry
+        CallRegistry.Snapshot connections = VoiceConnectionService.getCallRegistry().snapshot();
+        for (Connection connectionToEnd : connections.getConnections().values()) {
             connectionToEnd.onDisconnect();
         }
 
-        Log.d(TAG, "[RNCallKeepModule] endAllCalls executed");
+        CallKeepLog.d("[RNCallKeepModule] endAllCalls executed");
     }
 
     @ReactMethod
@@ -421,13 +582,13 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
         if (!isConnectionServiceAvailable()) {
             String error = "ConnectionService not available for this version of Android.";
-            Log.w(TAG, "[RNCallKeepModule] checkPhoneAccountPermission error " + error);
+            CallKeepLog.w("[RNCallKeepModule] checkPhoneAccountPermission error {}", error);
             promise.reject(E_ACTIVITY_DOES_NOT_EXIST, error);
             return;
         }
         if (currentActivity == null) {
             String error = "Activity doesn't exist";
-            Log.w(TAG, "[RNCallKeepModule] checkPhoneAccountPermission error " + error);
+            CallKeepLog.w("[RNCallKeepModule] checkPhoneAccountPermission error {}", error);
             promise.reject(E_ACTIVITY_DOES_NOT_EXIST, error);
             return;
         }
@@ -539,21 +700,202 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void getInitialEvents(Promise promise) {
-        promise.resolve(delayedEvents);
+        promise.resolve(delayedEventsToArray(delayedEvents.peek()));
     }
 
     @ReactMethod
     public void clearInitialEvents() {
-        delayedEvents = new WritableNativeArray();
+        delayedEvents.clear();
+    }
+
+    @ReactMethod
+    public void getDiagnostics(Promise promise) {
+        WritableMap diagnostics = Arguments.createMap();
+        diagnostics.putMap("delayedEvents", delayedEventsStats(delayedEvents));
+        diagnostics.putMap("serviceDelayedEvents", delayedEventsStats(VoiceConnectionService.getDelayedEvents()));
+        diagnostics.putString("appState", AppStateTracker.getState());
+        diagnostics.putDouble("binderCallsSaved", PhoneAccountCache.getBinderCallsSaved());
+
+        WritableMap timers = Arguments.createMap();
+        timers.putInt("pending", CallTimers.getPendingCount());
+        timers.putInt("calls", CallTimers.getCallCount());
+        timers.putDouble("fired", CallTimers.getFiredCount());
+        timers.putDouble("cancelled", CallTimers.getCancelledCount());
+        diagnostics.putMap("timers", timers);
+
+        WritableMap wakeUp = Arguments.createMap();
+        wakeUp.putString("state", WakeUpCoordinator.getState());
+        wakeUp.putDouble("started", WakeUpCoordinator.getStartedCount());
+        wakeUp.putDouble("merged", WakeUpCoordinator.getMergedCount());
+        wakeUp.putDouble("cancelled", WakeUpCoordinator.getCancelledCount());
+        diagnostics.putMap("wakeUp", wakeUp);
+
+        Context context = this.getAppContext();
+        WritableMap reachability = Arguments.createMap();
+        reachability.putInt("timeout", ReachabilityEstimator.getTimeout(context, getSettings(context).getAdaptiveReachability()));
+        reachability.putInt("samples", ReachabilityEstimator.getSampleCount());
+        diagnostics.putMap("reachability", reachability);
+
+        WritableMap audioRoutes = Arguments.createMap();
+        audioRoutes.putArray("routes", stringsToArray(AudioRouteModel.getRoutes(context)));
+        audioRoutes.putDouble("changes", AudioRouteModel.getChangeCount());
+        audioRoutes.putDouble("reads", AudioRouteModel.getReadCount());
+        diagnostics.putMap("audioRoutes", audioRoutes);
+
+        WritableMap audioRouteEvents = Arguments.createMap();
+        audioRouteEvents.putDouble("sent", AudioRouteDebouncer.getSentCount());
+        audioRouteEvents.putDouble("suppressed", AudioRouteDebouncer.getSuppressedCount());
+        diagnostics.putMap("audioRouteEvents", audioRouteEvents);
+
+        WritableMap foregroundService = Arguments.createMap();
+        foregroundService.putBoolean("active", ForegroundServiceManager.isForeground());
+        foregroundService.putInt("calls", ForegroundServiceManager.getCallCount());
+        foregroundService.putDouble("started", ForegroundServiceManager.getStartCount());
+        foregroundService.putDouble("notificationsBuilt", ForegroundServiceManager.getNotificationsBuilt());
+        diagnostics.putMap("foregroundService", foregroundService);
+        diagnostics.putDouble("resourceLookups", ResourceResolver.getLookupCount());
+
+        WritableMap flightRecorder = Arguments.createMap();
+        flightRecorder.putBoolean("enabled", FlightRecorder.isEnabled());
+        flightRecorder.putDouble("records", FlightRecorder.getRecordCount());
+        diagnostics.putMap("flightRecorder", flightRecorder);
+
+        promise.resolve(diagnostics);
+    }
+
+    /**
+     * @param sinceVersion version of the calls known by JS, a negative value returns all the calls.
+     */
+    @ReactMethod
+    public void getActiveCalls(double sinceVersion, Promise promise) {
+        promise.resolve(activeCallsToMap(VoiceConnectionService.getCallRegistry().snapshot(), (long) sinceVersion));
+    }
+
+    // All the calls, or only the changes since `sinceVersion` when the snapshot still knows them
+    private static WritableMap activeCallsToMap(CallRegistry.Snapshot snapshot, long sinceVersion) {
+        boolean full = !snapshot.canDiffFrom(sinceVersion);
+
+        WritableArray calls = Arguments.createArray();
+        for (CallRegistry.CallInfo call : full ? snapshot.getCalls() : snapshot.getChangedSince(sinceVersion)) {
+            WritableMap callMap = Arguments.createMap();
+            callMap.putString("callUUID", call.getUuid());
+            callMap.putString("handle", call.getNumber());
+            callMap.putString("name", call.getName());
+            callMap.putString("state", CallRegistry.getStateName(call.getState()));
+            callMap.putBoolean("hold", call.isOnHold());
+            callMap.putBoolean("muted", call.isMuted());
+            callMap.putString("audioRoute", call.getAudioRoute());
+            callMap.putDouble("createdAt", call.getCreatedAt());
+            callMap.putDouble("updatedAt", call.getUpdatedAt());
+            callMap.putDouble("version", call.getVersion());
+            calls.pushMap(callMap);
+        }
+
+        WritableArray removed = Arguments.createArray();
+        if (!full) {
+            for (String uuid : snapshot.getRemovedSince(sinceVersion)) {
+                removed.pushString(uuid);
+            }
+        }
+
+        WritableMap result = Arguments.createMap();
+        result.putDouble("version", snapshot.getVersion());
+        result.putBoolean("full", full);
+        result.putArray("calls", calls);
+        result.putArray("removed", removed);
+
+        return result;
+    }
+
+    /**
+     * Returns the last log entries, kept in memory from the debug level whatever the `logLevel` setting.
+     */
+    @ReactMethod
+    public void dumpLogs(Promise promise) {
+        WritableArray logs = Arguments.createArray();
+        for (CallKeepLog.Entry entry : CallKeepLog.dump()) {
+            WritableMap log = Arguments.createMap();
+            log.putDouble("time", entry.time);
+            log.putString("level", CallKeepLog.getLevelName(entry.level));
+            log.putString("message", entry.message);
+            logs.pushMap(log);
+        }
+
+        promise.resolve(logs);
+    }
+
+    /**
+     * Writes the flight recorder in the cache directory, `format` is `perfetto` (default) or `binary`.
+     */
+    @ReactMethod
+    public void exportFlightRecorder(@Nullable String format, Promise promise) {
+        Context context = this.getAppContext();
+        if (context == null) {
+            CallKeepLog.w("[RNCallKeepModule][exportFlightRecorder] no react context found.");
+            promise.reject("ExportFlightRecorder", "No react context found to export the flight recorder");
+            return;
+        }
+
+        try {
+            File file = FlightRecorder.export(context.getCacheDir(),
+                format != null ? format : FlightRecorder.FORMAT_PERFETTO);
+            promise.resolve(file.getAbsolutePath());
+        } catch (IOException exception) {
+            CallKeepLog.e("[RNCallKeepModule] exportFlightRecorder failed", exception);
+            promise.reject("ExportFlightRecorder", exception.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getCallMetrics(Promise promise) {
+        WritableMap stages = Arguments.createMap();
+        for (CallMetrics.Stage stage : CallMetrics.STAGES) {
+            LatencyHistogram histogram = stage.histogram;
+            WritableMap stats = Arguments.createMap();
+            stats.putDouble("count", histogram.getCount());
+            stats.putDouble("min", histogram.getMin() / 1000.0);
+            stats.putDouble("mean", histogram.getMean() / 1000.0);
+            stats.putDouble("p50", histogram.getValueAtPercentile(50) / 1000.0);
+            stats.putDouble("p90", histogram.getValueAtPercentile(90) / 1000.0);
+            stats.putDouble("p99", histogram.getValueAtPercentile(99) / 1000.0);
+            stats.putDouble("max", histogram.getMax() / 1000.0);
+            stages.putMap(stage.name, stats);
+        }
+
+        WritableMap calls = Arguments.createMap();
+        for (Map.Entry<String, Map<String, Long>> call : CallMetrics.getCallDurations().entrySet()) {
+            WritableMap durations = Arguments.createMap();
+            for (Map.Entry<String, Long> duration : call.getValue().entrySet()) {
+                durations.putDouble(duration.getKey(), duration.getValue() / 1000000.0);
+            }
+            calls.putMap(call.getKey(), durations);
+        }
+
+        WritableMap metrics = Arguments.createMap();
+        metrics.putMap("stages", stages);
+        metrics.putMap("calls", calls);
+
+        promise.resolve(metrics);
+    }
+
+    private WritableMap delayedEventsStats(DelayedEventQueue<?> queue) {
+        WritableMap stats = Arguments.createMap();
+        stats.putInt("size", queue.size());
+        stats.putInt("capacity", queue.getCapacity());
+        stats.putDouble("expired", queue.getExpiredCount());
+        stats.putDouble("evicted", queue.getEvictedCount());
+
+        return stats;
     }
 
     @ReactMethod
     public void setOnHold(String uuid, boolean shouldHold) {
-        Log.d(TAG, "[RNCallKeepModule] setOnHold, uuid: " + uuid + ", shouldHold: " + (shouldHold ? "true" : "false"));
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "setOnHold", uuid, shouldHold ? 1 : 0);
+        CallKeepLog.d("[RNCallKeepModule] setOnHold, uuid: {}, shouldHold: {}", uuid, shouldHold);
 
         Connection conn = VoiceConnectionService.getConnection(uuid);
         if (conn == null) {
-            Log.w(TAG, "[RNCallKeepModule] setOnHold ignored because no connection found, uuid: " + uuid);
+            CallKeepLog.w("[RNCallKeepModule] setOnHold ignored because no connection found, uuid: {}", uuid);
             return;
         }
 
@@ -566,14 +908,15 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void reportEndCallWithUUID(String uuid, int reason) {
-        Log.d(TAG, "[RNCallKeepModule] reportEndCallWithUUID, uuid: " + uuid + ", reason: " + reason);
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "reportEndCallWithUUID", uuid, reason);
+        CallKeepLog.d("[RNCallKeepModule] reportEndCallWithUUID, uuid: {}, reason: {}", uuid, reason);
         if (!isConnectionServiceAvailable() || !hasPhoneAccount()) {
             return;
         }
 
         VoiceConnection conn = (VoiceConnection) VoiceConnectionService.getConnection(uuid);
         if (conn == null) {
-            Log.w(TAG, "[RNCallKeepModule] reportEndCallWithUUID ignored because no connection found, uuid: " + uuid);
+            CallKeepLog.w("[RNCallKeepModule] reportEndCallWithUUID ignored because no connection found, uuid: {}", uuid);
             return;
         }
         conn.reportDisconnect(reason);
@@ -581,15 +924,16 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void rejectCall(String uuid) {
-        Log.d(TAG, "[RNCallKeepModule] rejectCall, uuid: " + uuid);
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "rejectCall", uuid, 0);
+        CallKeepLog.d("[RNCallKeepModule] rejectCall, uuid: {}", uuid);
         if (!isConnectionServiceAvailable() || !hasPhoneAccount()) {
-            Log.w(TAG, "[RNCallKeepModule] rejectCall ignored due to no ConnectionService or no phone account");
+            CallKeepLog.w("[RNCallKeepModule] rejectCall ignored due to no ConnectionService or no phone account");
             return;
         }
 
         Connection conn = VoiceConnectionService.getConnection(uuid);
         if (conn == null) {
-            Log.w(TAG, "[RNCallKeepModule] rejectCall ignored because no connection found, uuid: " + uuid);
+            CallKeepLog.w("[RNCallKeepModule] rejectCall ignored because no connection found, uuid: {}", uuid);
             return;
         }
 
@@ -598,9 +942,10 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void setConnectionState(String uuid, int state) {
-        Log.d(TAG, "[RNCallKeepModule] setConnectionState, uuid: " + uuid + ", state :" + state);
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "setConnectionState", uuid, state);
+        CallKeepLog.d("[RNCallKeepModule] setConnectionState, uuid: {}, state :{}", uuid, state);
         if (!isConnectionServiceAvailable() || !hasPhoneAccount()) {
-            Log.w(TAG, "[RNCallKeepModule] String ignored due to no ConnectionService or no phone account");
+            CallKeepLog.w("[RNCallKeepModule] String ignored due to no ConnectionService or no phone account");
             return;
         }
 
@@ -609,10 +954,11 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void setMutedCall(String uuid, boolean shouldMute) {
-        Log.d(TAG, "[RNCallKeepModule] setMutedCall, uuid: " + uuid + ", shouldMute: " + (shouldMute ? "true" : "false"));
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "setMutedCall", uuid, shouldMute ? 1 : 0);
+        CallKeepLog.d("[RNCallKeepModule] setMutedCall, uuid: {}, shouldMute: {}", uuid, shouldMute);
         Connection conn = VoiceConnectionService.getConnection(uuid);
         if (conn == null) {
-            Log.w(TAG, "[RNCallKeepModule] setMutedCall ignored because no connection found, uuid: " + uuid);
+            CallKeepLog.w("[RNCallKeepModule] setMutedCall ignored because no connection found, uuid: {}", uuid);
             return;
         }
 
@@ -634,10 +980,11 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
      */
     @ReactMethod
     public void toggleAudioRouteSpeaker(String uuid, boolean routeSpeaker) {
-        Log.d(TAG, "[RNCallKeepModule] toggleAudioRouteSpeaker, uuid: " + uuid + ", routeSpeaker: " + (routeSpeaker ? "true" : "false"));
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "toggleAudioRouteSpeaker", uuid, routeSpeaker ? 1 : 0);
+        CallKeepLog.d("[RNCallKeepModule] toggleAudioRouteSpeaker, uuid: {}, routeSpeaker: {}", uuid, routeSpeaker);
         VoiceConnection conn = (VoiceConnection) VoiceConnectionService.getConnection(uuid);
         if (conn == null) {
-            Log.w(TAG, "[RNCallKeepModule] toggleAudioRouteSpeaker ignored because no connection found, uuid: " + uuid);
+            CallKeepLog.w("[RNCallKeepModule] toggleAudioRouteSpeaker ignored because no connection found, uuid: {}", uuid);
             return;
         }
         if (routeSpeaker) {
@@ -649,30 +996,31 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void setAudioRoute(String uuid, String audioRoute, Promise promise){
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "setAudioRoute", uuid, 0);
         try {
             VoiceConnection conn = (VoiceConnection) VoiceConnectionService.getConnection(uuid);
             if (conn == null) {
                 return;
             }
             if(audioRoute.equals("Bluetooth")) {
-                Log.d(TAG,"[RNCallKeepModule] setting audio route: Bluetooth");
+                CallKeepLog.d("[RNCallKeepModule] setting audio route: Bluetooth");
                 conn.setAudioRoute(CallAudioState.ROUTE_BLUETOOTH);
                 promise.resolve(true);
                 return;
             }
             if(audioRoute.equals("Headset")) {
-                Log.d(TAG,"[RNCallKeepModule] setting audio route: Headset");
+                CallKeepLog.d("[RNCallKeepModule] setting audio route: Headset");
                 conn.setAudioRoute(CallAudioState.ROUTE_WIRED_HEADSET);
                 promise.resolve(true);
                 return;
             }
             if(audioRoute.equals("Speaker")) {
-                Log.d(TAG,"[RNCallKeepModule] setting audio route: Speaker");
+                CallKeepLog.d("[RNCallKeepModule] setting audio route: Speaker");
                 conn.setAudioRoute(CallAudioState.ROUTE_SPEAKER);
                 promise.resolve(true);
                 return;
             }
-            Log.d(TAG,"[RNCallKeepModule] setting audio route: Wired/Earpiece");
+            CallKeepLog.d("[RNCallKeepModule] setting audio route: Wired/Earpiece");
             conn.setAudioRoute(CallAudioState.ROUTE_WIRED_OR_EARPIECE);
             promise.resolve(true);
         } catch (Exception e) {
@@ -685,70 +1033,62 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
         try {
             Context context = this.getAppContext();
             if (context == null) {
-                Log.w(TAG, "[RNCallKeepModule][getAudioRoutes] no react context found.");
+                CallKeepLog.w("[RNCallKeepModule][getAudioRoutes] no react context found.");
                 promise.reject("No react context found to list audio routes");
                 return;
             }
-            AudioManager audioManager = (AudioManager) context.getSystemService(context.AUDIO_SERVICE);
-            WritableArray devices = Arguments.createArray();
-            ArrayList<String> typeChecker = new ArrayList<>();
-            AudioDeviceInfo[] audioDeviceInfo = audioManager.getDevices(AudioManager.GET_DEVICES_INPUTS + AudioManager.GET_DEVICES_OUTPUTS);
-            String selectedAudioRoute = getSelectedAudioRoute(audioManager);
-            for (AudioDeviceInfo device : audioDeviceInfo){
-                String type = getAudioRouteType(device.getType());
-                if(type != null && !typeChecker.contains(type)) {
-                    WritableMap deviceInfo = Arguments.createMap();
-                    deviceInfo.putString("name",  type);
-                    deviceInfo.putString("type",  type);
-                    if(type.equals(selectedAudioRoute)) {
-                        deviceInfo.putBoolean("selected",  true);
-                    }
-                    typeChecker.add(type);
-                    devices.pushMap(deviceInfo);
-                }
-            }
-            promise.resolve(devices);
+            promise.resolve(getAudioRoutes(context));
         } catch(Exception e) {
             promise.reject("GetAudioRoutes Error", e.getMessage());
         }
     }
 
-    private String getAudioRouteType(int type){
-        switch (type){
-            case(AudioDeviceInfo.TYPE_BLUETOOTH_A2DP):
-            case(AudioDeviceInfo.TYPE_BLUETOOTH_SCO):
-                return "Bluetooth";
-            case(AudioDeviceInfo.TYPE_WIRED_HEADPHONES):
-            case(AudioDeviceInfo.TYPE_WIRED_HEADSET):
-                return "Headset";
-            case(AudioDeviceInfo.TYPE_BUILTIN_MIC):
-                return "Phone";
-            case(AudioDeviceInfo.TYPE_BUILTIN_SPEAKER):
-                return "Speaker";
-            default:
-                return null;
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableArray getAudioRoutesSync() {
+        Context context = this.getAppContext();
+        if (context == null) {
+            CallKeepLog.w("[RNCallKeepModule][getAudioRoutesSync] no react context found.");
+            return Arguments.createArray();
         }
+
+        return getAudioRoutes(context);
     }
 
-    private String getSelectedAudioRoute(AudioManager audioManager){
-        if(audioManager.isBluetoothScoOn()){
-            return "Bluetooth";
-        }
-        if(audioManager.isSpeakerphoneOn()){
-            return "Speaker";
+    private WritableArray getAudioRoutes(Context context) {
+        return audioRoutesToArray(AudioRouteModel.getRoutes(context), AudioRouteModel.getSelectedRoute(context));
+    }
+
+    private static WritableArray stringsToArray(List<String> values) {
+        WritableArray array = Arguments.createArray();
+        for (String value : values) {
+            array.pushString(value);
         }
-        if(audioManager.isWiredHeadsetOn()){
-            return "Headset";
+
+        return array;
+    }
+
+    private static WritableArray audioRoutesToArray(List<String> routes, String selectedRoute) {
+        WritableArray devices = Arguments.createArray();
+        for (String route : routes) {
+            WritableMap deviceInfo = Arguments.createMap();
+            deviceInfo.putString("name", route);
+            deviceInfo.putString("type", route);
+            if (route.equals(selectedRoute)) {
+                deviceInfo.putBoolean("selected", true);
+            }
+            devices.pushMap(deviceInfo);
         }
-        return "Phone";
+
+        return devices;
     }
 
     @ReactMethod
     public void sendDTMF(String uuid, String key) {
-        Log.d(TAG, "[RNCallKeepModule] sendDTMF, uuid: " + uuid + ", key: " + key);
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "sendDTMF", uuid, key.isEmpty() ? 0 : key.charAt(0));
+        CallKeepLog.d("[RNCallKeepModule] sendDTMF, uuid: {}, key: {}", uuid, key);
         Connection conn = VoiceConnectionService.getConnection(uuid);
         if (conn == null) {
-            Log.w(TAG, "[RNCallKeepModule] sendDTMF ignored because no connection found, uuid: " + uuid);
+            CallKeepLog.w("[RNCallKeepModule] sendDTMF ignored because no connection found, uuid: {}", uuid);
             return;
         }
         char dtmf = key.charAt(0);
@@ -757,15 +1097,17 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void updateDisplay(String uuid, String displayName, String uri) {
-        Log.d(TAG, "[RNCallKeepModule] updateDisplay, uuid: " + uuid + ", displayName: " + displayName+ ", uri: " + uri);
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "updateDisplay", uuid, 0);
+        CallKeepLog.d("[RNCallKeepModule] updateDisplay, uuid: {}, displayName: {}, uri: {}", uuid, displayName, uri);
         Connection conn = VoiceConnectionService.getConnection(uuid);
         if (conn == null) {
-            Log.w(TAG, "[RNCallKeepModule] updateDisplay ignored because no connection found, uuid: " + uuid);
+            CallKeepLog.w("[RNCallKeepModule] updateDisplay ignored because no connection found, uuid: {}", uuid);
             return;
         }
 
         conn.setAddress(Uri.parse(uri), TelecomManager.PRESENTATION_ALLOWED);
         conn.setCallerDisplayName(displayName, TelecomManager.PRESENTATION_ALLOWED);
+        VoiceConnectionService.getCallRegistry().updateDisplay(uuid, Uri.parse(uri).getSchemeSpecificPart(), displayName);
     }
 
     @ReactMethod
@@ -777,16 +1119,49 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
         promise.resolve(hasPhoneAccount());
     }
 
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean hasPhoneAccountSync() {
+        if (telecomManager == null) {
+            this.initializeTelecomManager();
+        }
+
+        return hasPhoneAccount();
+    }
+
     @ReactMethod
     public void hasOutgoingCall(Promise promise) {
         promise.resolve(VoiceConnectionService.hasOutgoingCall);
     }
 
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean hasOutgoingCallSync() {
+        return VoiceConnectionService.hasOutgoingCall;
+    }
+
     @ReactMethod
     public void hasPermissions(Promise promise) {
         promise.resolve(this.hasPermissions());
     }
 
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean hasPermissionsSync() {
+        return this.hasPermissions();
+    }
+
+    /**
+     * @return the state of each call by uuid, read from the registry snapshot without locking.
+     */
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getCallStatesSync() {
+        WritableMap states = Arguments.createMap();
+        CallRegistry.Snapshot snapshot = VoiceConnectionService.getCallRegistry().snapshot();
+        for (String uuid : snapshot.getConnections().keySet()) {
+            states.putString(uuid, CallRegistry.getStateName(snapshot.getState(uuid)));
+        }
+
+        return states;
+    }
+
     @ReactMethod
     public void setAvailable(Boolean active) {
         VoiceConnectionService.setAvailable(active);
@@ -799,12 +1174,11 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
         }
 
         // Retrieve settings and set the `foregroundService` value
-        WritableMap settings = getSettings(null);
-        if (settings != null) {
-            settings.putMap("foregroundService", MapUtils.readableToWritableMap(foregroundServerSettings));
+        try {
+            storeSettings(getSettings(null).withForegroundService(foregroundServerSettings));
+        } catch (JSONException e) {
+            CallKeepLog.w("[RNCallKeepModule][setForegroundServiceSettings] exception: {}", e);
         }
-
-        setSettings(settings);
     }
 
     @ReactMethod
@@ -814,15 +1188,18 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void setReachable() {
-        VoiceConnectionService.setReachable();
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "setReachable", null, 0);
+        VoiceConnectionService.setReachable(this.getAppContext());
+        WakeUpCoordinator.onReachable(this.reactContext);
     }
 
     @ReactMethod
     public void setCurrentCallActive(String uuid) {
-        Log.d(TAG, "[RNCallKeepModule] setCurrentCallActive, uuid: " + uuid);
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "setCurrentCallActive", uuid, 0);
+        CallKeepLog.d("[RNCallKeepModule] setCurrentCallActive, uuid: {}", uuid);
         Connection conn = VoiceConnectionService.getConnection(uuid);
         if (conn == null) {
-            Log.w(TAG, "[RNCallKeepModule] setCurrentCallActive ignored because no connection found, uuid: " + uuid);
+            CallKeepLog.w("[RNCallKeepModule] setCurrentCallActive ignored because no connection found, uuid: {}", uuid);
             return;
         }
 
@@ -830,11 +1207,18 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
         conn.setActive();
     }
 
+    @ReactMethod
+    public void setConferenceable(String uuid, boolean conferenceable) {
+        FlightRecorder.record(FlightRecorder.CATEGORY_METHOD, "setConferenceable", uuid, conferenceable ? 1 : 0);
+        CallKeepLog.d("[RNCallKeepModule] setConferenceable, uuid: {}, conferenceable: {}", uuid, conferenceable);
+        VoiceConnectionService.getConferenceGraph().setConferenceable(uuid, conferenceable);
+    }
+
     @ReactMethod
     public void openPhoneAccounts() {
-        Log.d(TAG, "[RNCallKeepModule] openPhoneAccounts");
+        CallKeepLog.d("[RNCallKeepModule] openPhoneAccounts");
         if (!isConnectionServiceAvailable()) {
-            Log.w(TAG, "[RNCallKeepModule] openPhoneAccounts ignored due to no ConnectionService");
+            CallKeepLog.w("[RNCallKeepModule] openPhoneAccounts ignored due to no ConnectionService");
             return;
         }
 
@@ -846,7 +1230,7 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
             Context context = this.getAppContext();
             if (context == null) {
-                Log.w(TAG, "[RNCallKeepModule][openPhoneAccounts] no react context found.");
+                CallKeepLog.w("[RNCallKeepModule][openPhoneAccounts] no react context found.");
                 return;
             }
 
@@ -859,9 +1243,9 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void openPhoneAccountSettings() {
-        Log.d(TAG, "[RNCallKeepModule] openPhoneAccountSettings");
+        CallKeepLog.d("[RNCallKeepModule] openPhoneAccountSettings");
         if (!isConnectionServiceAvailable()) {
-            Log.w(TAG, "[RNCallKeepModule] openPhoneAccountSettings ignored due to no ConnectionService");
+            CallKeepLog.w("[RNCallKeepModule] openPhoneAccountSettings ignored due to no ConnectionService");
             return;
         }
 
@@ -869,7 +1253,7 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
         intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_MULTIPLE_TASK);
         Context context = this.getAppContext();
         if (context == null) {
-            Log.w(TAG, "[RNCallKeepModule][openPhoneAccountSettings] no react context found.");
+            CallKeepLog.w("[RNCallKeepModule][openPhoneAccountSettings] no react context found.");
             return;
         }
         context.startActivity(intent);
@@ -885,23 +1269,33 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
         promise.resolve(isConnectionServiceAvailable());
     }
 
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean isConnectionServiceAvailableSync() {
+        return isConnectionServiceAvailable();
+    }
+
     @ReactMethod
     public void checkPhoneAccountEnabled(Promise promise) {
         promise.resolve(hasPhoneAccount());
     }
 
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean checkPhoneAccountEnabledSync() {
+        return hasPhoneAccount();
+    }
+
     @ReactMethod
     public void backToForeground() {
         Context context = getAppContext();
         if (context == null) {
-            Log.w(TAG, "[RNCallKeepModule][backToForeground] no react context found.");
+            CallKeepLog.w("[RNCallKeepModule][backToForeground] no react context found.");
             return;
         }
         String packageName = context.getApplicationContext().getPackageName();
         Intent focusIntent = context.getPackageManager().getLaunchIntentForPackage(packageName).cloneFilter();
         Activity activity = getCurrentReactActivity();
         boolean isOpened = activity != null;
-        Log.d(TAG, "[RNCallKeepModule] backToForeground, app isOpened ?" + (isOpened ? "true" : "false"));
+        CallKeepLog.d("[RNCallKeepModule] backToForeground, app isOpened ?{}", isOpened);
 
         if (isOpened) {
             focusIntent.addFlags(Intent.FLAG_ACTIVITY_REORDER_TO_FRONT);
@@ -917,6 +1311,8 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
     }
 
     public static void onRequestPermissionsResult(int requestCode, String[] grantedPermissions, int[] grantResults) {
+        PhoneAccountCache.invalidate("onRequestPermissionsResult");
+
         int permissionsIndex = 0;
         List<String> permsList = Arrays.asList(permissions);
         for (int result : grantResults) {
@@ -935,62 +1331,98 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
     private void registerPhoneAccount(Context appContext) {
         if (!isConnectionServiceAvailable()) {
-            Log.w(TAG, "[RNCallKeepModule] registerPhoneAccount ignored due to no ConnectionService");
+            CallKeepLog.w("[RNCallKeepModule] registerPhoneAccount ignored due to no ConnectionService");
             return;
         }
 
         this.initializeTelecomManager();
-        Context context = this.getAppContext();
-        if (context == null) {
-            Log.w(TAG, "[RNCallKeepModule][registerPhoneAccount] no react context found.");
-            return;
-        }
-        String appName = this.getApplicationName(context);
+        telephonyManager = (TelephonyManager) appContext.getSystemService(Context.TELEPHONY_SERVICE);
 
-        PhoneAccount.Builder builder = new PhoneAccount.Builder(handle, appName);
-        if (isSelfManaged()) {
-            builder.setCapabilities(PhoneAccount.CAPABILITY_SELF_MANAGED);
-        }
-        else {
-            builder.setCapabilities(PhoneAccount.CAPABILITY_CALL_PROVIDER);
-        }
+        NativeCallKeep.registerPhoneAccount(appContext);
+    }
 
-        if (_settings != null && _settings.hasKey("imageName")) {
-            int identifier = appContext.getResources().getIdentifier(_settings.getString("imageName"), "drawable", appContext.getPackageName());
-            Icon icon = Icon.createWithResource(appContext, identifier);
-            builder.setIcon(icon);
-        }
+    /**
+     * @return false when the event is delayed until JS listens to it.
+     */
+    private boolean sendEventToJS(String eventName, @Nullable WritableMap params) {
+        boolean isBoundToJS = this.reactContext.hasActiveCatalystInstance();
+        CallKeepLog.v("[RNCallKeepModule] sendEventToJS, eventName: {}, bound: {}, hasListeners: {} args : {}", eventName, isBoundToJS, hasListeners, params);
+        FlightRecorder.record(FlightRecorder.CATEGORY_EMIT, eventName, null, isBoundToJS && hasListeners ? 1 : 0);
 
-        PhoneAccount account = builder.build();
+        if (isBoundToJS && hasListeners) {
+            if (eventBatchingWindow > 0) {
+                this.addEventToBatch(eventName, params);
+                return true;
+            }
 
-        telephonyManager = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+            this.reactContext.getJSModule(RCTDeviceEventEmitter.class).emit(eventName, params);
+            return true;
+        }
 
-        telecomManager.registerPhoneAccount(account);
+        this.queueDelayedEvent(eventName, params);
+        return false;
     }
 
-    private void sendEventToJS(String eventName, @Nullable WritableMap params) {
-        boolean isBoundToJS = this.reactContext.hasActiveCatalystInstance();
-        Log.v(TAG, "[RNCallKeepModule] sendEventToJS, eventName: " + eventName + ", bound: " + isBoundToJS + ", hasListeners: " + hasListeners + " args : " + (params != null ? params.toString() : "null"));
+    private void queueDelayedEvent(String eventName, @Nullable ReadableMap params) {
+        Bundle event = new Bundle();
+        event.putString("name", eventName);
+        event.putBundle("data", params != null ? Arguments.toBundle(params) : new Bundle());
 
-        if (isBoundToJS && hasListeners) {
-            this.reactContext.getJSModule(RCTDeviceEventEmitter.class).emit(eventName, params);
-        } else {
+        delayedEvents.add(event, ESSENTIAL_EVENTS.contains(eventName));
+    }
+
+    private WritableArray delayedEventsToArray(List<Bundle> events) {
+        WritableArray array = Arguments.createArray();
+        for (Bundle event : events) {
             WritableMap data = Arguments.createMap();
-            if (params == null) {
-                params = Arguments.createMap();
-            }
+            data.putString("name", event.getString("name"));
+            data.putMap("data", Arguments.fromBundle(event.getBundle("data")));
+            array.pushMap(data);
+        }
+
+        return array;
+    }
 
-            data.putString("name", eventName);
-            data.putMap("data", params);
-            delayedEvents.pushMap(data);
+    private void addEventToBatch(String eventName, @Nullable WritableMap params) {
+        WritableMap data = Arguments.createMap();
+        data.putString("name", eventName);
+        data.putMap("data", params != null ? params : Arguments.createMap());
+
+        synchronized (eventBatchLock) {
+            if (pendingEventBatch == null) {
+                pendingEventBatch = new ArrayList<WritableMap>();
+                eventBatchHandler.postDelayed(flushEventBatchRunnable, eventBatchingWindow);
+            }
+            pendingEventBatch.add(data);
         }
     }
 
-    private String getApplicationName(Context appContext) {
-        ApplicationInfo applicationInfo = appContext.getApplicationInfo();
-        int stringId = applicationInfo.labelRes;
+    private void flushEventBatch() {
+        List<WritableMap> batch;
+        synchronized (eventBatchLock) {
+            batch = pendingEventBatch;
+            pendingEventBatch = null;
+        }
+
+        if (batch == null) {
+            return;
+        }
+
+        CallKeepLog.v("[RNCallKeepModule] flushEventBatch, event count: {}", batch.size());
 
-        return stringId == 0 ? applicationInfo.nonLocalizedLabel.toString() : appContext.getString(stringId);
+        if (!this.reactContext.hasActiveCatalystInstance() || !hasListeners) {
+            // JS went away during the batching window, keep the events for `getInitialEvents`.
+            for (WritableMap data : batch) {
+                this.queueDelayedEvent(data.getString("name"), data.getMap("data"));
+            }
+            return;
+        }
+
+        WritableArray events = Arguments.createArray();
+        for (WritableMap data : batch) {
+            events.pushMap(data);
+        }
+        this.reactContext.getJSModule(RCTDeviceEventEmitter.class).emit(EVENT_BATCH_NAME, events);
     }
 
     private Boolean hasPermissions() {
@@ -998,8 +1430,7 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
 
         boolean hasPermissions = true;
         for (String permission : permissions) {
-            int permissionCheck = ContextCompat.checkSelfPermission(context, permission);
-            if (permissionCheck != PackageManager.PERMISSION_GRANTED) {
+            if (!PhoneAccountCache.hasPermission(context, permission)) {
                 hasPermissions = false;
             }
         }
@@ -1016,33 +1447,21 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
             return true;
         }
 
-        return isConnectionServiceAvailable() && telecomManager != null &&
-            hasPermissions() && telecomManager.getPhoneAccount(handle) != null &&
-            telecomManager.getPhoneAccount(handle).isEnabled();
-    }
-
-    private void registerReceiver() {
-        if (!isReceiverRegistered) {
-            voiceBroadcastReceiver = new VoiceBroadcastReceiver();
-            IntentFilter intentFilter = new IntentFilter();
-            intentFilter.addAction(ACTION_END_CALL);
-            intentFilter.addAction(ACTION_ANSWER_CALL);
-            intentFilter.addAction(ACTION_MUTE_CALL);
-            intentFilter.addAction(ACTION_UNMUTE_CALL);
-            intentFilter.addAction(ACTION_DTMF_TONE);
-            intentFilter.addAction(ACTION_UNHOLD_CALL);
-            intentFilter.addAction(ACTION_HOLD_CALL);
-            intentFilter.addAction(ACTION_ONGOING_CALL);
-            intentFilter.addAction(ACTION_AUDIO_SESSION);
-            intentFilter.addAction(ACTION_CHECK_REACHABILITY);
-            intentFilter.addAction(ACTION_SHOW_INCOMING_CALL_UI);
-            intentFilter.addAction(ACTION_ON_SILENCE_INCOMING_CALL);
-            intentFilter.addAction(ACTION_ON_CREATE_CONNECTION_FAILED);
-            intentFilter.addAction(ACTION_DID_CHANGE_AUDIO_ROUTE);
+        if (!isConnectionServiceAvailable() || telecomManager == null || !hasPermissions()) {
+            return false;
+        }
+
+        PhoneAccount account = PhoneAccountCache.getPhoneAccount(telecomManager, handle);
+        return account != null && account.isEnabled();
+    }
+
+    private void registerEventListener() {
+        if (!isListenerRegistered) {
+            voiceEventListener = new VoiceEventListener();
 
             if (this.reactContext != null) {
-                LocalBroadcastManager.getInstance(this.reactContext).registerReceiver(voiceBroadcastReceiver, intentFilter);
-                isReceiverRegistered = true;
+                CallEventBus.register(voiceEventListener);
+                isListenerRegistered = true;
 
                 VoiceConnectionService.startObserving();
             }
@@ -1053,58 +1472,44 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
         return this.reactContext != null ? this.reactContext.getApplicationContext() : null;
     }
 
-    // Store all callkeep settings in JSON
-    private WritableMap storeSettings(ReadableMap options) {
+    // Store all callkeep settings in JSON and make them visible to the ConnectionService
+    private void storeSettings(CallKeepSettings settings) {
+        _settings = settings;
+        this.applySettings();
+
         Context context = getAppContext();
         if (context == null) {
-            Log.w(TAG, "[RNCallKeepModule][storeSettings] no react context found.");
-            return MapUtils.readableToWritableMap(options);
+            CallKeepLog.w("[RNCallKeepModule][storeSettings] no react context found.");
+            return;
         }
 
         SharedPreferences sharedPref = context.getSharedPreferences("rn-callkeep", Context.MODE_PRIVATE);
-        try {
-            JSONObject jsonObject = MapUtils.convertMapToJson(options);
-            String jsonString = jsonObject.toString();
-            sharedPref.edit().putString("settings", jsonString).apply();
-        } catch (JSONException e) {
-            Log.w(TAG, "[RNCallKeepModule][storeSettings] exception: " + e);
-        }
-        return MapUtils.readableToWritableMap(options);
+        sharedPref.edit().putString("settings", settings.toJson()).apply();
     }
 
-    private static void fetchStoredSettings(@Nullable Context fromContext) {
-        Context context = fromContext != null ? fromContext : instance.getAppContext();
-        if (instance == null && context == null) {
-            Log.w(TAG, "[RNCallKeepModule][fetchStoredSettings] no instance nor fromContext.");
-            return;
-        }
-        _settings = new WritableNativeMap();
+    private static CallKeepSettings fetchStoredSettings(@Nullable Context fromContext) {
+        Context context = fromContext != null ? fromContext : (instance != null ? instance.getAppContext() : null);
         if (context == null) {
-            Log.w(TAG, "[RNCallKeepModule][fetchStoredSettings] no react context found.");
-            return;
+            CallKeepLog.w("[RNCallKeepModule][fetchStoredSettings] no react context found.");
+            return CallKeepSettings.EMPTY;
         }
 
         SharedPreferences sharedPref = context.getSharedPreferences("rn-callkeep", Context.MODE_PRIVATE);
-        try {
-            String jsonString = sharedPref.getString("settings", (new JSONObject()).toString());
-            if (jsonString != null) {
-                JSONObject jsonObject = new JSONObject(jsonString);
+        CallKeepSettings settings = CallKeepSettings.fromJson(sharedPref.getString("settings", null));
+        _settings = settings;
 
-                _settings = MapUtils.convertJsonToMap(jsonObject);
-            }
-        } catch(JSONException e) {
-        }
+        return settings;
     }
 
-    private class VoiceBroadcastReceiver extends BroadcastReceiver {
+    private class VoiceEventListener implements CallEventBus.Listener {
         @Override
-        public void onReceive(Context context, Intent intent) {
+        public void onCallEvent(CallEvent event) {
             WritableMap args = Arguments.createMap();
-            HashMap<String, String> attributeMap = (HashMap<String, String>)intent.getSerializableExtra("attributeMap");
+            Map<String, String> attributeMap = event.getAttributes();
 
-            Log.d(TAG, "[RNCallKeepModule][onReceive] " + intent.getAction());
+            CallKeepLog.d("[RNCallKeepModule][onCallEvent] {}", event.getAction());
 
-            switch (intent.getAction()) {
+            switch (event.getAction()) {
                 case ACTION_END_CALL:
                     args.putString("callUUID", attributeMap.get(EXTRA_CALL_UUID));
                     sendEventToJS("RNCallKeepPerformEndCallAction", args);
@@ -1143,10 +1548,24 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
                     args.putString("handle", attributeMap.get(EXTRA_CALL_NUMBER));
                     args.putString("callUUID", attributeMap.get(EXTRA_CALL_UUID));
                     args.putString("name", attributeMap.get(EXTRA_CALLER_NAME));
-                    sendEventToJS("RNCallKeepDidReceiveStartCallAction", args);
+                    if (sendEventToJS("RNCallKeepDidReceiveStartCallAction", args)) {
+                        CallMetrics.mark(attributeMap.get(EXTRA_CALL_UUID), CallMetrics.MARK_START_CALL_DELIVERED);
+                    }
                     break;
                 case ACTION_AUDIO_SESSION:
-                    sendEventToJS("RNCallKeepDidActivateAudioSession", null);
+                    if (sendEventToJS("RNCallKeepDidActivateAudioSession", null)) {
+                        CallMetrics.mark(attributeMap.get(EXTRA_CALL_UUID), CallMetrics.MARK_AUDIO_SESSION_DELIVERED);
+                    }
+                    break;
+                case ACTION_DID_DISPLAY_INCOMING_CALL:
+                    args.putString("handle", attributeMap.get(EXTRA_CALL_NUMBER));
+                    args.putString("callUUID", attributeMap.get(EXTRA_CALL_UUID));
+                    args.putString("name", attributeMap.get(EXTRA_CALLER_NAME));
+                    args.putString("hasVideo", attributeMap.get(EXTRA_HAS_VIDEO));
+                    if (attributeMap.get(EXTRA_PAYLOAD) != null) {
+                        args.putString("payload", attributeMap.get(EXTRA_PAYLOAD));
+                    }
+                    sendEventToJS("RNCallKeepDidDisplayIncomingCall", args);
                     break;
                 case ACTION_CHECK_REACHABILITY:
                     sendEventToJS("RNCallKeepCheckReachability", null);
@@ -1159,16 +1578,8 @@ public class RNCallKeepModule extends ReactContextBaseJavaModule {
                     sendEventToJS("RNCallKeepShowIncomingCallUi", args);
                     break;
                 case ACTION_WAKE_APP:
-                    Intent headlessIntent = new Intent(reactContext, RNCallKeepBackgroundMessagingService.class);
-                    headlessIntent.putExtra("callUUID", attributeMap.get(EXTRA_CALL_UUID));
-                    headlessIntent.putExtra("name", attributeMap.get(EXTRA_CALLER_NAME));
-                    headlessIntent.putExtra("handle", attributeMap.get(EXTRA_CALL_NUMBER));
-                    Log.d(TAG, "[RNCallKeepModule] wakeUpApplication: " + attributeMap.get(EXTRA_CALL_UUID) + ", number : " + attributeMap.get(EXTRA_CALL_NUMBER) + ", displayName:" + attributeMap.get(EXTRA_CALLER_NAME));
-
-                    ComponentName name = reactContext.startService(headlessIntent);
-                    if (name != null) {
-                        HeadlessJsTaskService.acquireWakeLockNow(reactContext);
-                    }
+                    CallKeepLog.d("[RNCallKeepModule] wakeUpApplication: {}, number : {}, displayName:{}", attributeMap.get(EXTRA_CALL_UUID), attributeMap.get(EXTRA_CALL_NUMBER), attributeMap.get(EXTRA_CALLER_NAME));
+                    WakeUpCoordinator.wakeUp(reactContext, attributeMap.get(EXTRA_CALL_UUID), attributeMap.get(EXTRA_CALL_NUMBER), attributeMap.get(EXTRA_CALLER_NAME));
                     break;
                 case ACTION_ON_SILENCE_INCOMING_CALL:
                     args.putString("handle", attributeMap.get(EXTRA_CALL_NUMBER));
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Learns how long the JS application takes to answer `checkReachability` with `setReachable()`.
+ *
+ * The last {@link #MAX_SAMPLES} latencies are kept in a ring persisted in the shared preferences, so a cold
+ * start uses what was measured by the previous processes. The timeout is a percentile of these samples,
+ * bounded by the floor and ceiling of the settings.
+ */
+public class ReachabilityEstimator {
+    private static final String PREFERENCES_KEY = "reachabilityLatencies";
+
+    public static final int DEFAULT_TIMEOUT = 2000;
+    public static final int MAX_SAMPLES = 32;
+    // Below this, the percentile is not meaningful and the default timeout is used
+    public static final int MIN_SAMPLES = 5;
+
+    private static final int[] samples = new int[MAX_SAMPLES];
+    private static int count = 0;
+    private static int next = 0;
+    private static boolean loaded = false;
+
+    // When the pending check started, 0 when no check is pending
+    private static volatile long checkStartedAt = 0;
+
+    public static void onCheckStarted() {
+        checkStartedAt = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Records the latency of the pending check, if any.
+     * Answers coming after the timeout are recorded too, or the timeout would only learn from fast answers.
+     */
+    public static void onReachable(@Nullable Context context, CallKeepSettings.AdaptiveReachability settings) {
+        long startedAt = checkStartedAt;
+        checkStartedAt = 0;
+        if (startedAt == 0 || context == null) {
+            return;
+        }
+
+        int latency = (int) Math.min(SystemClock.elapsedRealtime() - startedAt, settings.getMax());
+        CallKeepLog.d("[ReachabilityEstimator] onReachable, latency: {} ms", latency);
+
+        synchronized (samples) {
+            load(context);
+            samples[next] = latency;
+            next = (next + 1) % MAX_SAMPLES;
+            count = Math.min(count + 1, MAX_SAMPLES);
+            store(context);
+        }
+    }
+
+    /**
+     * @return the delay to wait for `setReachable()` before waking up the application, in ms.
+     */
+    public static int getTimeout(@Nullable Context context, @Nullable CallKeepSettings.AdaptiveReachability settings) {
+        if (settings == null || context == null) {
+            return DEFAULT_TIMEOUT;
+        }
+
+        int[] sorted;
+        synchronized (samples) {
+            load(context);
+            if (count < MIN_SAMPLES) {
+                return clamp(DEFAULT_TIMEOUT, settings);
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+
+        int index = (int) Math.ceil(settings.getPercentile() / 100.0 * sorted.length) - 1;
+        return clamp(sorted[Math.max(0, Math.min(index, sorted.length - 1))], settings);
+    }
+
+    public static int getSampleCount() {
+        synchronized (samples) {
+            return count;
+        }
+    }
+
+    private static int clamp(int timeout, CallKeepSettings.AdaptiveReachability settings) {
+        return Math.max(settings.getMin(), Math.min(timeout, settings.getMax()));
+    }
+
+    // Called with the samples lock held
+    private static void load(Context context) {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+
+        String stored = getPreferences(context).getString(PREFERENCES_KEY, null);
+        if (stored == null || stored.isEmpty()) {
+            return;
+        }
+
+        for (String value : stored.split(",")) {
+            if (count == MAX_SAMPLES) {
+                break;
+            }
+            try {
+                int latency = Integer.parseInt(value);
+                samples[count++] = latency;
+            } catch (NumberFormatException e) {
+                CallKeepLog.w("[ReachabilityEstimator] ignoring stored latency: {}", value);
+            }
+        }
+        next = count % MAX_SAMPLES;
+    }
+
+    // Called with the samples lock held, the oldest sample first
+    private static void store(Context context) {
+        StringBuilder stored = new StringBuilder();
+        int first = count < MAX_SAMPLES ? 0 : next;
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                stored.append(',');
+            }
+            stored.append(samples[(first + i) % MAX_SAMPLES]);
+        }
+
+        getPreferences(context).edit().putString(PREFERENCES_KEY, stored.toString()).apply();
+    }
+
+    private static SharedPreferences getPreferences(Context context) {
+        return context.getSharedPreferences("rn-callkeep", Context.MODE_PRIVATE);
+    }
+}
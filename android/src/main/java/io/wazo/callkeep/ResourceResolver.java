@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.content.Context;
+import android.graphics.drawable.Icon;
+import androidx.annotation.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves the resources named in the settings, `imageName` and `foregroundService.notificationIcon`.
+ *
+ * `Resources.getIdentifier` looks the name up by reflection. The identifiers are kept in the settings, so each one is
+ * looked up once per settings change, and {@link #preload} resolves them on a background thread as soon as the
+ * settings are stored, before any call needs them.
+ */
+public class ResourceResolver {
+    public static final int UNRESOLVED = -1;
+
+    private static final Map<Integer, Icon> icons = new ConcurrentHashMap<>();
+    private static final AtomicLong lookupCount = new AtomicLong();
+
+    private static final Executor executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "RNCallKeepResources");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * @return the resource identifier, 0 when not found.
+     */
+    public static int getIdentifier(Context context, String name, String type) {
+        Context appContext = context.getApplicationContext();
+        lookupCount.incrementAndGet();
+
+        return appContext.getResources().getIdentifier(name, type, appContext.getPackageName());
+    }
+
+    /**
+     * @return the icon of the resource, created once, or null for an unknown resource.
+     */
+    @Nullable
+    public static Icon getIcon(Context context, int resource) {
+        if (resource == 0) {
+            return null;
+        }
+
+        Icon icon = icons.get(resource);
+        if (icon == null) {
+            icon = Icon.createWithResource(context.getApplicationContext(), resource);
+            if (icon != null) {
+                icons.put(resource, icon);
+            }
+        }
+
+        return icon;
+    }
+
+    /**
+     * Resolves the resources of the settings on a background thread.
+     */
+    public static void preload(@Nullable Context context, final CallKeepSettings settings) {
+        if (context == null) {
+            return;
+        }
+
+        final Context appContext = context.getApplicationContext();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    getIcon(appContext, settings.getImageResource(appContext));
+
+                    CallKeepSettings.ForegroundService foregroundService = settings.getForegroundService();
+                    if (foregroundService != null) {
+                        foregroundService.getNotificationIconResource(appContext);
+                    }
+                } catch (Exception e) {
+                    CallKeepLog.w("[ResourceResolver] preload failed: {}", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the number of `getIdentifier` lookups.
+     */
+    public static long getLookupCount() {
+        return lookupCount.get();
+    }
+}
@@ -19,18 +19,14 @@ package io.wazo.callkeep;
 
 import android.annotation.TargetApi;
 import android.content.Context;
-import android.content.Intent;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
 import androidx.annotation.Nullable;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import android.telecom.CallAudioState;
 import android.telecom.Connection;
 import android.telecom.DisconnectCause;
 import android.telecom.TelecomManager;
 import android.net.Uri;
-import android.util.Log;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -59,12 +55,21 @@ public class VoiceConnection extends Connection {
     private boolean rejected = false;
     private HashMap<String, String> handle;
     private Context context;
-    private static final String TAG = "RNCallKeep";
+    private final AudioRouteDebouncer audioRouteDebouncer;
 
     VoiceConnection(Context context, HashMap<String, String> handle) {
         super();
         this.handle = handle;
         this.context = context;
+        this.audioRouteDebouncer = new AudioRouteDebouncer(handle.get(EXTRA_CALL_UUID), new AudioRouteDebouncer.Callback() {
+            @Override
+            public void onRouteChanged(int route) {
+                // The handle is shared with the other events, the route is only set on a copy
+                HashMap<String, String> attributes = new HashMap<>(VoiceConnection.this.handle);
+                attributes.put("output", CallAudioState.audioRouteToString(route));
+                sendCallRequestToActivity(ACTION_DID_CHANGE_AUDIO_ROUTE, attributes);
+            }
+        });
 
         String number = handle.get(EXTRA_CALL_NUMBER);
         String name = handle.get(EXTRA_CALLER_NAME);
@@ -88,10 +93,12 @@ public class VoiceConnection extends Connection {
 
     @Override
     public void onCallAudioStateChanged(CallAudioState state) {
-        Log.d(TAG, "[VoiceConnection] onCallAudioStateChanged muted :" + (state.isMuted() ? "true" : "false"));
+        CallKeepLog.d("[VoiceConnection] onCallAudioStateChanged muted :{}", state.isMuted());
+        FlightRecorder.record(FlightRecorder.CATEGORY_STATE, "onCallAudioStateChanged", handle.get(EXTRA_CALL_UUID), state.getRoute());
 
-        handle.put("output", CallAudioState.audioRouteToString(state.getRoute()));
-        sendCallRequestToActivity(ACTION_DID_CHANGE_AUDIO_ROUTE, handle);
+        AudioRouteModel.onCallAudioStateChanged(state);
+        VoiceConnectionService.onConnectionAudioStateChanged(handle.get(EXTRA_CALL_UUID), state.isMuted(), CallAudioState.audioRouteToString(state.getRoute()));
+        audioRouteDebouncer.onRoute(state.getRoute(), VoiceConnectionService.getSettings(context).getAudioRouteDebounce());
 
         if (state.isMuted() == this.isMuted) {
             return;
@@ -104,7 +111,7 @@ public class VoiceConnection extends Connection {
     @Override
     public void onAnswer(int videoState) {
         super.onAnswer(videoState);
-        Log.d(TAG, "[VoiceConnection] onAnswer(int) executed");
+        CallKeepLog.d("[VoiceConnection] onAnswer(int) executed");
 
         this._onAnswer(videoState);
     }
@@ -112,32 +119,34 @@ public class VoiceConnection extends Connection {
     @Override
     public void onAnswer() {
         super.onAnswer();
-        Log.d(TAG, "[VoiceConnection] onAnswer() executed");
+        CallKeepLog.d("[VoiceConnection] onAnswer() executed");
 
         this._onAnswer(0);
     }
 
     @Override
     public void onPlayDtmfTone(char dtmf) {
-        Log.d(TAG, "[VoiceConnection] Playing DTMF : " + dtmf);
+        CallKeepLog.d("[VoiceConnection] Playing DTMF : {}", dtmf);
+        FlightRecorder.record(FlightRecorder.CATEGORY_CALLBACK, "onPlayDtmfTone", handle.get(EXTRA_CALL_UUID), dtmf);
         try {
             handle.put("DTMF", Character.toString(dtmf));
         } catch (Throwable exception) {
-            Log.e(TAG, "[VoiceConnection] Handle map error", exception);
+            CallKeepLog.e("[VoiceConnection] Handle map error", exception);
         }
         sendCallRequestToActivity(ACTION_DTMF_TONE, handle);
     }
 
     @Override
     public void onDisconnect() {
+        FlightRecorder.record(FlightRecorder.CATEGORY_CALLBACK, "onDisconnect", handle.get(EXTRA_CALL_UUID), 0);
         super.onDisconnect();
         setDisconnected(new DisconnectCause(DisconnectCause.LOCAL));
         sendCallRequestToActivity(ACTION_END_CALL, handle);
-        Log.d(TAG, "[VoiceConnection] onDisconnect executed");
+        CallKeepLog.d("[VoiceConnection] onDisconnect executed");
         try {
             ((VoiceConnectionService) context).deinitConnection(handle.get(EXTRA_CALL_UUID));
         } catch(Throwable exception) {
-            Log.e(TAG, "[VoiceConnection] onDisconnect handle map error", exception);
+            CallKeepLog.e("[VoiceConnection] onDisconnect handle map error", exception);
         }
         destroy();
     }
@@ -170,21 +179,23 @@ public class VoiceConnection extends Connection {
 
     @Override
     public void onAbort() {
+        FlightRecorder.record(FlightRecorder.CATEGORY_CALLBACK, "onAbort", handle.get(EXTRA_CALL_UUID), 0);
         super.onAbort();
         setDisconnected(new DisconnectCause(DisconnectCause.REJECTED));
         sendCallRequestToActivity(ACTION_END_CALL, handle);
-        Log.d(TAG, "[VoiceConnection] onAbort executed");
+        CallKeepLog.d("[VoiceConnection] onAbort executed");
         try {
             ((VoiceConnectionService) context).deinitConnection(handle.get(EXTRA_CALL_UUID));
         } catch(Throwable exception) {
-            Log.e(TAG, "[VoiceConnection] onAbort handle map error", exception);
+            CallKeepLog.e("[VoiceConnection] onAbort handle map error", exception);
         }
         destroy();
     }
 
     @Override
     public void onHold() {
-        Log.d(TAG, "[VoiceConnection] onHold");
+        CallKeepLog.d("[VoiceConnection] onHold");
+        FlightRecorder.record(FlightRecorder.CATEGORY_CALLBACK, "onHold", handle.get(EXTRA_CALL_UUID), 0);
         super.onHold();
         this.setOnHold();
         sendCallRequestToActivity(ACTION_HOLD_CALL, handle);
@@ -192,14 +203,15 @@ public class VoiceConnection extends Connection {
 
     @Override
     public void onUnhold() {
-        Log.d(TAG, "[VoiceConnection] onUnhold");
+        CallKeepLog.d("[VoiceConnection] onUnhold");
+        FlightRecorder.record(FlightRecorder.CATEGORY_CALLBACK, "onUnhold", handle.get(EXTRA_CALL_UUID), 0);
         super.onUnhold();
         sendCallRequestToActivity(ACTION_UNHOLD_CALL, handle);
         setActive();
     }
 
     public void onReject(int rejectReason) {
-        Log.d(TAG, "[VoiceConnection] onReject(int) executed");
+        CallKeepLog.d("[VoiceConnection] onReject(int) executed");
 
         this._onReject(rejectReason, null);
     }
@@ -207,7 +219,7 @@ public class VoiceConnection extends Connection {
     @Override
     public void onReject() {
         super.onReject();
-        Log.d(TAG, "[VoiceConnection] onReject() executed");
+        CallKeepLog.d("[VoiceConnection] onReject() executed");
 
         this._onReject(0, null);
     }
@@ -215,7 +227,7 @@ public class VoiceConnection extends Connection {
     @Override
     public void onReject(String replyMessage) {
         super.onReject(replyMessage);
-        Log.d(TAG, "[VoiceConnection] onReject(String) executed");
+        CallKeepLog.d("[VoiceConnection] onReject(String) executed");
 
         this._onReject(0, replyMessage);
     }
@@ -224,92 +236,98 @@ public class VoiceConnection extends Connection {
     public void onCallEvent(String event, Bundle extras) {
         super.onCallEvent(event, extras);
 
-        Log.d(TAG, "[VoiceConnection] onCallEvent called, event: " + event);
+        CallKeepLog.d("[VoiceConnection] onCallEvent called, event: {}", event);
     }
 
     @Override
     public void onDeflect(Uri address) {
         super.onDeflect(address);
 
-        Log.d(TAG, "[VoiceConnection] onDeflect called, address: " + address);
+        CallKeepLog.d("[VoiceConnection] onDeflect called, address: {}", address);
     }
 
     @Override
     public void onHandoverComplete() {
         super.onHandoverComplete();
 
-        Log.d(TAG, "[VoiceConnection] onHandoverComplete called");
+        CallKeepLog.d("[VoiceConnection] onHandoverComplete called");
     }
 
     @Override
     public void onPostDialContinue(boolean proceed) {
         super.onPostDialContinue(proceed);
 
-        Log.d(TAG, "[VoiceConnection] onPostDialContinue called, proceed: " + proceed);
+        CallKeepLog.d("[VoiceConnection] onPostDialContinue called, proceed: {}", proceed);
     }
 
     @Override
     public void onPullExternalCall() {
         super.onPullExternalCall();
 
-        Log.d(TAG, "[VoiceConnection] onPullExternalCall called");
+        CallKeepLog.d("[VoiceConnection] onPullExternalCall called");
     }
 
     @Override
     public void onSeparate() {
         super.onSeparate();
 
-        Log.d(TAG, "[VoiceConnection] onSeparate called");
+        CallKeepLog.d("[VoiceConnection] onSeparate called");
     }
 
     @Override
     public void onStateChanged(int state) {
         super.onStateChanged(state);
 
-        Log.d(TAG, "[VoiceConnection] onStateChanged called, state : " + state);
+        CallKeepLog.d("[VoiceConnection] onStateChanged called, state : {}", state);
+        FlightRecorder.record(FlightRecorder.CATEGORY_STATE, "onStateChanged", handle.get(EXTRA_CALL_UUID), state);
+        VoiceConnectionService.onConnectionStateChanged(handle.get(EXTRA_CALL_UUID), state);
     }
 
     @Override
     public void onSilence() {
         super.onSilence();
 
+        FlightRecorder.record(FlightRecorder.CATEGORY_CALLBACK, "onSilence", handle.get(EXTRA_CALL_UUID), 0);
         sendCallRequestToActivity(ACTION_ON_SILENCE_INCOMING_CALL, handle);
-        Log.d(TAG, "[VoiceConnection] onSilence called");
+        CallKeepLog.d("[VoiceConnection] onSilence called");
     }
 
     @Override
     public void onStopDtmfTone() {
         super.onStopDtmfTone();
 
-        Log.d(TAG, "[VoiceConnection] onStopDtmfTone called");
+        CallKeepLog.d("[VoiceConnection] onStopDtmfTone called");
     }
 
     @Override
     public void onStopRtt() {
         super.onStopRtt();
 
-        Log.d(TAG, "[VoiceConnection] onStopRtt called");
+        CallKeepLog.d("[VoiceConnection] onStopRtt called");
     }
 
     private void _onAnswer(int videoState) {
-        Log.d(TAG, "[VoiceConnection] onAnswer called, videoState: " + videoState + ", answered: " + answered);
+        CallKeepLog.d("[VoiceConnection] onAnswer called, videoState: {}, answered: {}", videoState, answered);
+        FlightRecorder.record(FlightRecorder.CATEGORY_CALLBACK, "onAnswer", handle.get(EXTRA_CALL_UUID), answered ? 1 : 0);
         // On some device (like Huawei P30 lite), both onAnswer() and onAnswer(int) are called
         // we have to trigger the callback only once
         if (answered) {
             return;
         }
         answered = true;
+        CallMetrics.mark(handle.get(EXTRA_CALL_UUID), CallMetrics.MARK_ANSWER);
 
         setConnectionCapabilities(getConnectionCapabilities() | Connection.CAPABILITY_HOLD);
         setAudioModeIsVoip(true);
 
         sendCallRequestToActivity(ACTION_ANSWER_CALL, handle);
         sendCallRequestToActivity(ACTION_AUDIO_SESSION, handle);
-        Log.d(TAG, "[VoiceConnection] onAnswer executed");
+        CallKeepLog.d("[VoiceConnection] onAnswer executed");
     }
 
     private void _onReject(int rejectReason, String replyMessage) {
-        Log.d(TAG, "[VoiceConnection] onReject executed, rejectReason: " + rejectReason + ", replyMessage: " + replyMessage + ", rejected:" + rejected);
+        CallKeepLog.d("[VoiceConnection] onReject executed, rejectReason: {}, replyMessage: {}, rejected:{}", rejectReason, replyMessage, rejected);
+        FlightRecorder.record(FlightRecorder.CATEGORY_CALLBACK, "onReject", handle.get(EXTRA_CALL_UUID), rejectReason);
         if (rejected) {
             return;
         }
@@ -317,39 +335,27 @@ public class VoiceConnection extends Connection {
 
         setDisconnected(new DisconnectCause(DisconnectCause.REJECTED));
         sendCallRequestToActivity(ACTION_END_CALL, handle);
-        Log.d(TAG, "[VoiceConnection] onReject executed");
+        CallKeepLog.d("[VoiceConnection] onReject executed");
         try {
             ((VoiceConnectionService) context).deinitConnection(handle.get(EXTRA_CALL_UUID));
         } catch(Throwable exception) {
-            Log.e(TAG, "[VoiceConnection] onReject, handle map error", exception);
+            CallKeepLog.e("[VoiceConnection] onReject, handle map error", exception);
         }
         destroy();
     }
 
     @Override
     public void onShowIncomingCallUi() {
-        Log.d(TAG, "[VoiceConnection] onShowIncomingCallUi");
+        CallKeepLog.d("[VoiceConnection] onShowIncomingCallUi");
+        FlightRecorder.record(FlightRecorder.CATEGORY_CALLBACK, "onShowIncomingCallUi", handle.get(EXTRA_CALL_UUID), 0);
+        CallMetrics.mark(handle.get(EXTRA_CALL_UUID), CallMetrics.MARK_SHOW_INCOMING_CALL_UI);
         sendCallRequestToActivity(ACTION_SHOW_INCOMING_CALL_UI, handle);
     }
 
     /*
-     * Send call request to the RNCallKeepModule
+     * Send call request to the RNCallKeepModule, kept until a listener is available, eg: answered before React is up
      */
-    private void sendCallRequestToActivity(final String action, @Nullable final HashMap attributeMap) {
-        final VoiceConnection instance = this;
-        final Handler handler = new Handler();
-
-        handler.post(new Runnable() {
-            @Override
-            public void run() {
-                Intent intent = new Intent(action);
-                if (attributeMap != null) {
-                    Bundle extras = new Bundle();
-                    extras.putSerializable("attributeMap", attributeMap);
-                    intent.putExtras(extras);
-                }
-                LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
-            }
-        });
+    private void sendCallRequestToActivity(final String action, @Nullable final HashMap<String, String> attributeMap) {
+        VoiceConnectionService.dispatchCallEvent(new CallEvent(action, attributeMap), true);
     }
 }
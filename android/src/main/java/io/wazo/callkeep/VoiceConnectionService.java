@@ -18,15 +18,7 @@
 package io.wazo.callkeep;
 
 import android.annotation.TargetApi;
-import android.app.ActivityManager;
-import android.app.ActivityManager.RunningTaskInfo;
-import android.app.Notification;
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
-import android.content.res.Resources;
-import android.content.Intent;
 import android.content.Context;
-import android.content.ComponentName;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
@@ -34,8 +26,6 @@ import android.os.Handler;
 import android.os.Looper;
 import android.speech.tts.Voice;
 import androidx.annotation.Nullable;
-import androidx.core.app.NotificationCompat;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import android.telecom.CallAudioState;
 import android.telecom.Connection;
 import android.telecom.ConnectionRequest;
@@ -44,15 +34,10 @@ import android.telecom.DisconnectCause;
 import android.telecom.PhoneAccount;
 import android.telecom.PhoneAccountHandle;
 import android.telecom.TelecomManager;
-import android.util.Log;
 
-import com.facebook.react.HeadlessJsTaskService;
-import com.facebook.react.bridge.ReadableMap;
-import com.facebook.react.bridge.WritableMap;
 
-import java.util.ArrayList;
+import java.util.AbstractMap;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -65,10 +50,8 @@ import static io.wazo.callkeep.Constants.ACTION_CHECK_REACHABILITY;
 import static io.wazo.callkeep.Constants.ACTION_WAKE_APP;
 import static io.wazo.callkeep.Constants.EXTRA_CALLER_NAME;
 import static io.wazo.callkeep.Constants.EXTRA_CALL_NUMBER;
-import static io.wazo.callkeep.Constants.EXTRA_CALL_NUMBER_SCHEMA;
 import static io.wazo.callkeep.Constants.EXTRA_CALL_UUID;
 import static io.wazo.callkeep.Constants.EXTRA_DISABLE_ADD_CALL;
-import static io.wazo.callkeep.Constants.FOREGROUND_SERVICE_TYPE_MICROPHONE;
 import static io.wazo.callkeep.Constants.ACTION_ON_CREATE_CONNECTION_FAILED;
 
 // @see https://github.com/kbagchiGWC/voice-quickstart-android/blob/9a2aff7fbe0d0a5ae9457b48e9ad408740dfb968/exampleConnectionService/src/main/java/com/twilio/voice/examples/connectionservice/VoiceConnectionService.java
@@ -81,35 +64,115 @@ public class VoiceConnectionService extends ConnectionService {
     private static String notReachableCallUuid;
     private static ConnectionRequest currentConnectionRequest;
     private static PhoneAccountHandle phoneAccountHandle;
-    private static String TAG = "RNCallKeep";
 
     // Delay events sent to RNCallKeepModule when there is no listener available
-    private static List<Bundle> delayedEvents = new ArrayList<Bundle>();
+    private static final DelayedEventQueue<CallEvent> delayedEvents = new DelayedEventQueue<CallEvent>();
 
-    public static Map<String, VoiceConnection> currentConnections = new HashMap<>();
+    private static final CallRegistry callRegistry = new CallRegistry();
+    private static final ConferenceGraph conferenceGraph = new ConferenceGraph();
+
+    /**
+     * Map view of the registry, kept for apps using the connections directly: put and remove are forwarded to the
+     * registry and the conference graph.
+     *
+     * @deprecated use {@link #getConnection(String)} and {@link #getCallRegistry()}.
+     */
+    @Deprecated
+    public static final Map<String, VoiceConnection> currentConnections = new AbstractMap<String, VoiceConnection>() {
+        private final Map<String, VoiceConnection> view = callRegistry.asMap();
+
+        @Override
+        public Set<Entry<String, VoiceConnection>> entrySet() {
+            return view.entrySet();
+        }
+
+        @Override
+        public VoiceConnection get(Object key) {
+            return view.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return view.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return view.size();
+        }
+
+        @Override
+        public VoiceConnection put(String uuid, VoiceConnection connection) {
+            VoiceConnection previous = callRegistry.get(uuid);
+            callRegistry.put(uuid, connection, null, null, connection.getState());
+            conferenceGraph.add(uuid, connection, connection.getState());
+            return previous;
+        }
+
+        @Override
+        public VoiceConnection remove(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            conferenceGraph.remove((String) key);
+            return callRegistry.remove((String) key);
+        }
+    };
     public static Boolean hasOutgoingCall = false;
     public static VoiceConnectionService currentConnectionService = null;
 
     public static Connection getConnection(String connectionId) {
-        if (currentConnections.containsKey(connectionId)) {
-            return currentConnections.get(connectionId);
-        }
-        return null;
+        return callRegistry.get(connectionId);
+    }
+
+    public static CallRegistry getCallRegistry() {
+        return callRegistry;
+    }
+
+    public static ConferenceGraph getConferenceGraph() {
+        return conferenceGraph;
     }
 
     public VoiceConnectionService() {
         super();
-        Log.d(TAG, "[VoiceConnectionService] Constructor");
+        CallKeepLog.d("[VoiceConnectionService] Constructor");
         currentConnectionRequest = null;
         currentConnectionService = this;
     }
 
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        FlightRecorder.start(this);
+        AppStateTracker.install(this);
+        restoreDelayedEvents(this);
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        // The foreground state does not outlive the service instance
+        ForegroundServiceManager.reset();
+    }
+
+    // Restore events not delivered to JS before the process was killed
+    public static void restoreDelayedEvents(Context context) {
+        if (delayedEvents.hasJournal()) {
+            return;
+        }
+
+        EventJournal journal = EventJournal.open(context.getApplicationContext(), "rn-callkeep-service-events");
+        if (journal != null) {
+            delayedEvents.attachJournal(journal, CallEvent.JOURNAL_CODEC);
+        }
+    }
+
     public static void setPhoneAccountHandle(PhoneAccountHandle phoneAccountHandle) {
         VoiceConnectionService.phoneAccountHandle = phoneAccountHandle;
     }
 
     public static void setAvailable(Boolean value) {
-        Log.d(TAG, "[VoiceConnectionService] setAvailable: " + (value ? "true" : "false"));
+        CallKeepLog.d("[VoiceConnectionService] setAvailable: {}", value);
         if (value) {
             setInitialized(true);
         }
@@ -117,53 +180,75 @@ public class VoiceConnectionService extends ConnectionService {
         isAvailable = value;
     }
 
-    public static WritableMap getSettings(@Nullable Context context) {
-       WritableMap settings = RNCallKeepModule.getSettings(context);
-       return settings;
+    public static CallKeepSettings getSettings(@Nullable Context context) {
+        return RNCallKeepModule.getSettings(context);
     }
 
-    public static ReadableMap getForegroundSettings(@Nullable Context context) {
-       WritableMap settings = VoiceConnectionService.getSettings(context);
-       if (settings == null) {
-          return null;
-       }
-
-       return settings.getMap("foregroundService");
+    @Nullable
+    public static CallKeepSettings.ForegroundService getForegroundSettings(@Nullable Context context) {
+        return VoiceConnectionService.getSettings(context).getForegroundService();
     }
 
     public static void setCanMakeMultipleCalls(Boolean value) {
-        Log.d(TAG, "[VoiceConnectionService] setCanMakeMultipleCalls: " + (value ? "true" : "false"));
+        CallKeepLog.d("[VoiceConnectionService] setCanMakeMultipleCalls: {}", value);
 
         VoiceConnectionService.canMakeMultipleCalls = value;
     }
 
-    public static void setReachable() {
-        Log.d(TAG, "[VoiceConnectionService] setReachable");
+    public static void setReachable(@Nullable Context context) {
+        CallKeepLog.d("[VoiceConnectionService] setReachable");
         isReachable = true;
+        if (notReachableCallUuid != null) {
+            // Only the reachability timeout, the other timers of the call are still needed
+            CallTimers.cancel(notReachableCallUuid, "checkReachability");
+            notReachableCallUuid = null;
+        }
+
+        CallKeepSettings.AdaptiveReachability adaptiveReachability = getSettings(context).getAdaptiveReachability();
+        if (adaptiveReachability != null) {
+            ReachabilityEstimator.onReachable(context, adaptiveReachability);
+        }
         VoiceConnectionService.currentConnectionRequest = null;
     }
 
     public static void setInitialized(boolean value) {
-        Log.d(TAG, "[VoiceConnectionService] setInitialized: " + (value ? "true" : "false"));
+        CallKeepLog.d("[VoiceConnectionService] setInitialized: {}", value);
 
         isInitialized = value;
     }
 
     public static void deinitConnection(String connectionId) {
-        Log.d(TAG, "[VoiceConnectionService] deinitConnection:" + connectionId);
+        CallKeepLog.d("[VoiceConnectionService] deinitConnection:{}", connectionId);
+        FlightRecorder.record(FlightRecorder.CATEGORY_CALLBACK, "deinitConnection", connectionId, 0);
         VoiceConnectionService.hasOutgoingCall = false;
 
-        currentConnectionService.stopForegroundService();
+        ForegroundServiceManager.release(currentConnectionService, connectionId);
 
-        if (currentConnections.containsKey(connectionId)) {
-            currentConnections.remove(connectionId);
+        callRegistry.remove(connectionId);
+        conferenceGraph.remove(connectionId);
+        if (callRegistry.size() == 0) {
+            AudioRouteModel.onCallsEnded();
+        }
+        CallTimers.cancel(connectionId);
+        if (connectionId != null && connectionId.equals(notReachableCallUuid)) {
+            notReachableCallUuid = null;
         }
+        WakeUpCoordinator.onCallEnded(currentConnectionService, connectionId);
+    }
+
+    public static void onConnectionStateChanged(String connectionId, int state) {
+        callRegistry.updateState(connectionId, state);
+        conferenceGraph.updateState(connectionId, state);
+    }
+
+    public static void onConnectionAudioStateChanged(String connectionId, boolean muted, String audioRoute) {
+        callRegistry.updateAudioState(connectionId, muted, audioRoute);
     }
 
     public static void setState(String uuid, int state) {
         Connection conn = VoiceConnectionService.getConnection(uuid);
         if (conn == null) {
-            Log.w(TAG, "[VoiceConnectionService] setState ignored because no connection found, uuid: " + uuid);
+            CallKeepLog.w("[VoiceConnectionService] setState ignored because no connection found, uuid: {}", uuid);
             return;
         }
 
@@ -193,19 +278,20 @@ public class VoiceConnectionService extends ConnectionService {
         String name = extra.getString(EXTRA_CALLER_NAME);
         String callUUID = extra.getString(EXTRA_CALL_UUID);
         Boolean isForeground = VoiceConnectionService.isRunning(this.getApplicationContext());
-        WritableMap settings = this.getSettings(this);
-        Integer timeout = settings.hasKey("displayCallReachabilityTimeout") ? settings.getInt("displayCallReachabilityTimeout") : null;
+        int timeout = this.getSettings(this).getDisplayCallReachabilityTimeout();
 
-        Log.d(TAG, "[VoiceConnectionService] onCreateIncomingConnection, name:" + name + ", number" + number +
-            ", isForeground: " + isForeground + ", isReachable:" + isReachable + ", timeout: " + timeout);
+        CallKeepLog.d("[VoiceConnectionService] onCreateIncomingConnection, name:{}, number{}", name, number);
+        CallKeepLog.d("[VoiceConnectionService] onCreateIncomingConnection, isForeground: {}, isReachable:{}, timeout: {}", isForeground, isReachable, timeout);
+        CallMetrics.mark(callUUID, CallMetrics.MARK_CREATE_INCOMING_CONNECTION);
+        FlightRecorder.record(FlightRecorder.CATEGORY_CALLBACK, "onCreateIncomingConnection", callUUID, timeout);
 
         Connection incomingCallConnection = createConnection(request);
         incomingCallConnection.setRinging();
         incomingCallConnection.setInitialized();
 
-        startForegroundService();
+        ForegroundServiceManager.acquire(this, callUUID);
 
-        if (timeout != null) {
+        if (timeout != CallKeepSettings.NO_TIMEOUT) {
             this.checkForAppReachability(callUUID, timeout);
         }
 
@@ -217,7 +303,8 @@ public class VoiceConnectionService extends ConnectionService {
         VoiceConnectionService.hasOutgoingCall = true;
         String uuid = UUID.randomUUID().toString();
 
-        Log.d(TAG, "[VoiceConnectionService] onCreateOutgoingConnection, uuid:" + uuid);
+        CallKeepLog.d("[VoiceConnectionService] onCreateOutgoingConnection, uuid:{}", uuid);
+        FlightRecorder.record(FlightRecorder.CATEGORY_CALLBACK, "onCreateOutgoingConnection", uuid, 0);
 
         if (!isInitialized && !isReachable) {
             this.notReachableCallUuid = uuid;
@@ -236,14 +323,14 @@ public class VoiceConnectionService extends ConnectionService {
         String displayName = extras.getString(EXTRA_CALLER_NAME);
         Boolean isForeground = VoiceConnectionService.isRunning(this.getApplicationContext());
 
-        Log.d(TAG, "[VoiceConnectionService] makeOutgoingCall, uuid:" + uuid + ", number: " + number + ", displayName:" + displayName);
+        CallKeepLog.d("[VoiceConnectionService] makeOutgoingCall, uuid:{}, number: {}, displayName:{}", uuid, number, displayName);
 
         // Wakeup application if needed
         if (!isForeground || forceWakeUp) {
-            Log.d(TAG, "[VoiceConnectionService] onCreateOutgoingConnection: Waking up application");
+            CallKeepLog.d("[VoiceConnectionService] onCreateOutgoingConnection: Waking up application");
             this.wakeUpApplication(uuid, number, displayName);
         } else if (!this.canMakeOutgoingCall() && isReachable) {
-            Log.d(TAG, "[VoiceConnectionService] onCreateOutgoingConnection: not available");
+            CallKeepLog.d("[VoiceConnectionService] onCreateOutgoingConnection: not available");
             return Connection.createFailedConnection(new DisconnectCause(DisconnectCause.LOCAL));
         }
 
@@ -255,104 +342,42 @@ public class VoiceConnectionService extends ConnectionService {
         }
 
         if (!canMakeMultipleCalls) {
-            Log.d(TAG, "[VoiceConnectionService] onCreateOutgoingConnection: disabling multi calls");
+            CallKeepLog.d("[VoiceConnectionService] onCreateOutgoingConnection: disabling multi calls");
             extras.putBoolean(EXTRA_DISABLE_ADD_CALL, true);
         }
 
+        CallMetrics.mark(extras.getString(EXTRA_CALL_UUID), CallMetrics.MARK_CREATE_OUTGOING_CONNECTION);
         outgoingCallConnection = createConnection(request);
         outgoingCallConnection.setDialing();
         outgoingCallConnection.setAudioModeIsVoip(true);
         outgoingCallConnection.setCallerDisplayName(displayName, TelecomManager.PRESENTATION_ALLOWED);
 
-        startForegroundService();
+        ForegroundServiceManager.acquire(this, extras.getString(EXTRA_CALL_UUID));
 
         // ‍️Weirdly on some Samsung phones (A50, S9...) using `setInitialized` will not display the native UI ...
         // when making a call from the native Phone application. The call will still be displayed correctly without it.
         if (!Build.MANUFACTURER.equalsIgnoreCase("Samsung")) {
-            Log.d(TAG, "[VoiceConnectionService] onCreateOutgoingConnection: initializing connection on Samsung device");
+            CallKeepLog.d("[VoiceConnectionService] onCreateOutgoingConnection: initializing connection on Samsung device");
             outgoingCallConnection.setInitialized();
         }
 
-        HashMap<String, String> extrasMap = this.bundleToMap(extras);
+        HashMap<String, String> extrasMap = ConnectionExtras.bundleToMap(extras);
 
         sendCallRequestToActivity(ACTION_ONGOING_CALL, extrasMap, true);
         sendCallRequestToActivity(ACTION_AUDIO_SESSION, extrasMap, true);
 
-        Log.d(TAG, "[VoiceConnectionService] onCreateOutgoingConnection: done");
+        CallKeepLog.d("[VoiceConnectionService] onCreateOutgoingConnection: done");
 
         return outgoingCallConnection;
     }
 
-    private void startForegroundService() {
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
-            // Foreground services not required before SDK 28
-            return;
-        }
-        Log.d(TAG, "[VoiceConnectionService] startForegroundService");
-        ReadableMap foregroundSettings = getForegroundSettings(null);
-
-        if (foregroundSettings == null || !foregroundSettings.hasKey("channelId")) {
-            Log.w(TAG, "[VoiceConnectionService] Not creating foregroundService because not configured");
-            return;
-        }
-
-        String NOTIFICATION_CHANNEL_ID = foregroundSettings.getString("channelId");
-        String channelName = foregroundSettings.getString("channelName");
-        NotificationChannel chan = new NotificationChannel(NOTIFICATION_CHANNEL_ID, channelName, NotificationManager.IMPORTANCE_NONE);
-        chan.setLockscreenVisibility(Notification.VISIBILITY_PRIVATE);
-        NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-        assert manager != null;
-        manager.createNotificationChannel(chan);
-
-        NotificationCompat.Builder notificationBuilder = new NotificationCompat.Builder(this, NOTIFICATION_CHANNEL_ID);
-        notificationBuilder.setOngoing(true)
-            .setContentTitle(foregroundSettings.getString("notificationTitle"))
-            .setPriority(NotificationManager.IMPORTANCE_MIN)
-            .setCategory(Notification.CATEGORY_SERVICE);
-
-        if (foregroundSettings.hasKey("notificationIcon")) {
-            Context context = this.getApplicationContext();
-            Resources res = context.getResources();
-            String smallIcon = foregroundSettings.getString("notificationIcon");
-            notificationBuilder.setSmallIcon(res.getIdentifier(smallIcon, "mipmap", context.getPackageName()));
-        }
-
-        Log.d(TAG, "[VoiceConnectionService] Starting foreground service");
-
-        Notification notification = notificationBuilder.build();
-        startForeground(FOREGROUND_SERVICE_TYPE_MICROPHONE, notification);
-    }
-
-    private void stopForegroundService() {
-        Log.d(TAG, "[VoiceConnectionService] stopForegroundService");
-        ReadableMap foregroundSettings = getForegroundSettings(null);
-
-        if (foregroundSettings == null || !foregroundSettings.hasKey("channelId")) {
-            Log.d(TAG, "[VoiceConnectionService] Discarding stop foreground service, no service configured");
-            return;
-        }
-        stopForeground(FOREGROUND_SERVICE_TYPE_MICROPHONE);
-    }
-
     private void wakeUpApplication(String uuid, String number, String displayName) {
-         Log.d(TAG, "[VoiceConnectionService] wakeUpApplication, uuid:" + uuid + ", number :" + number + ", displayName:" + displayName);
+         CallKeepLog.d("[VoiceConnectionService] wakeUpApplication, uuid:{}, number :{}, displayName:{}", uuid, number, displayName);
 
         // Avoid to call wake up the app again in wakeUpAfterReachabilityTimeout.
         this.currentConnectionRequest = null;
 
-        Intent headlessIntent = new Intent(
-            this.getApplicationContext(),
-            RNCallKeepBackgroundMessagingService.class
-        );
-        headlessIntent.putExtra("callUUID", uuid);
-        headlessIntent.putExtra("name", displayName);
-        headlessIntent.putExtra("handle", number);
-
-        ComponentName name = this.getApplicationContext().startService(headlessIntent);
-        if (name != null) {
-          Log.d(TAG, "[VoiceConnectionService] wakeUpApplication, acquiring lock for application:" + name);
-          HeadlessJsTaskService.acquireWakeLockNow(this.getApplicationContext());
-        }
+        WakeUpCoordinator.wakeUp(this, uuid, number, displayName);
     }
 
     private void wakeUpAfterReachabilityTimeout(ConnectionRequest request) {
@@ -362,7 +387,7 @@ public class VoiceConnectionService extends ConnectionService {
         Bundle extras = request.getExtras();
         String number = request.getAddress().getSchemeSpecificPart();
         String displayName = extras.getString(EXTRA_CALLER_NAME);
-        Log.d(TAG, "[VoiceConnectionService] checkReachability timeout, force wakeup, number :" + number + ", displayName: " + displayName);
+        CallKeepLog.d("[VoiceConnectionService] checkReachability timeout, force wakeup, number :{}, displayName: {}", number, displayName);
 
         wakeUpApplication(this.notReachableCallUuid, number, displayName);
 
@@ -370,17 +395,19 @@ public class VoiceConnectionService extends ConnectionService {
     }
 
     private void checkReachability() {
-        Log.d(TAG, "[VoiceConnectionService] checkReachability");
+        final int timeout = ReachabilityEstimator.getTimeout(this, getSettings(this).getAdaptiveReachability());
+        CallKeepLog.d("[VoiceConnectionService] checkReachability, timeout: {}", timeout);
 
         final VoiceConnectionService instance = this;
+        ReachabilityEstimator.onCheckStarted();
         sendCallRequestToActivity(ACTION_CHECK_REACHABILITY, null, true);
 
-        new android.os.Handler().postDelayed(
-            new Runnable() {
-                public void run() {
-                    instance.wakeUpAfterReachabilityTimeout(instance.currentConnectionRequest);
-                }
-            }, 2000);
+        CallTimers.schedule(notReachableCallUuid, "checkReachability", new Runnable() {
+            public void run() {
+                instance.wakeUpAfterReachabilityTimeout(instance.currentConnectionRequest);
+                notReachableCallUuid = null;
+            }
+        }, timeout);
     }
 
     private Boolean canMakeOutgoingCall() {
@@ -392,22 +419,13 @@ public class VoiceConnectionService extends ConnectionService {
         if (request.getAddress() == null) {
             return null;
         }
-        HashMap<String, String> extrasMap = this.bundleToMap(extras);
+        HashMap<String, String> extrasMap = ConnectionExtras.bundleToMap(extras);
 
         String callerNumber = request.getAddress().toString();
-        Log.d(TAG, "[VoiceConnectionService] createConnection, callerNumber:" + callerNumber);
-
-        if (callerNumber.contains(":")) {
-            //CallerNumber contains a schema which we'll separate out
-            int schemaIndex = callerNumber.indexOf(":");
-            String number = callerNumber.substring(schemaIndex + 1);
-            String schema = callerNumber.substring(0, schemaIndex);
-
-            extrasMap.put(EXTRA_CALL_NUMBER, number);
-            extrasMap.put(EXTRA_CALL_NUMBER_SCHEMA, schema);
-        } else {
-            extrasMap.put(EXTRA_CALL_NUMBER, callerNumber);
-        }
+        CallKeepLog.d("[VoiceConnectionService] createConnection, callerNumber:{}", callerNumber);
+
+        //CallerNumber may contain a schema which we'll separate out
+        ConnectionExtras.putCallNumber(extrasMap, callerNumber);
 
         VoiceConnection connection = new VoiceConnection(this, extrasMap);
         connection.setConnectionCapabilities(Connection.CAPABILITY_MUTE | Connection.CAPABILITY_SUPPORT_HOLD);
@@ -415,38 +433,32 @@ public class VoiceConnectionService extends ConnectionService {
         if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             Context context = getApplicationContext();
             TelecomManager telecomManager = (TelecomManager) context.getSystemService(context.TELECOM_SERVICE);
-            PhoneAccount phoneAccount = telecomManager.getPhoneAccount(request.getAccountHandle());
+            PhoneAccount phoneAccount = PhoneAccountCache.getPhoneAccount(telecomManager, request.getAccountHandle());
 
             //If the phone account is self managed, then this connection must also be self managed.
             if((phoneAccount.getCapabilities() & PhoneAccount.CAPABILITY_SELF_MANAGED) == PhoneAccount.CAPABILITY_SELF_MANAGED) {
-                Log.d(TAG, "[VoiceConnectionService] PhoneAccount is SELF_MANAGED, so connection will be too");
+                CallKeepLog.d("[VoiceConnectionService] PhoneAccount is SELF_MANAGED, so connection will be too");
                 connection.setConnectionProperties(Connection.PROPERTY_SELF_MANAGED);
             }
             else {
-                Log.d(TAG, "[VoiceConnectionService] PhoneAccount is not SELF_MANAGED, so connection won't be either");
+                CallKeepLog.d("[VoiceConnectionService] PhoneAccount is not SELF_MANAGED, so connection won't be either");
             }
         }
 
         connection.setInitializing();
         connection.setExtras(extras);
-        currentConnections.put(extras.getString(EXTRA_CALL_UUID), connection);
-
-        // Get other connections for conferencing
-        Map<String, VoiceConnection> otherConnections = new HashMap<>();
-        for (Map.Entry<String, VoiceConnection> entry : currentConnections.entrySet()) {
-            if(!(extras.getString(EXTRA_CALL_UUID).equals(entry.getKey()))) {
-                otherConnections.put(entry.getKey(), entry.getValue());
-            }
-        }
-        List<Connection> conferenceConnections = new ArrayList<Connection>(otherConnections.values());
-        connection.setConferenceableConnections(conferenceConnections);
+        String uuid = extras.getString(EXTRA_CALL_UUID);
+        callRegistry.put(uuid, connection, extrasMap.get(EXTRA_CALL_NUMBER), extrasMap.get(EXTRA_CALLER_NAME), connection.getState());
+        // Conferenceable connections are updated when the call becomes active or held
+        conferenceGraph.add(uuid, connection, connection.getState());
 
         return connection;
     }
 
     @Override
     public void onConference(Connection connection1, Connection connection2) {
-        Log.d(TAG, "[VoiceConnectionService] onConference");
+        CallKeepLog.d("[VoiceConnectionService] onConference");
+        FlightRecorder.record(FlightRecorder.CATEGORY_CALLBACK, "onConference", null, 0);
         super.onConference(connection1, connection2);
         VoiceConnection voiceConnection1 = (VoiceConnection) connection1;
         VoiceConnection voiceConnection2 = (VoiceConnection) connection2;
@@ -464,23 +476,12 @@ public class VoiceConnectionService extends ConnectionService {
     @Override
     public void onCreateIncomingConnectionFailed(PhoneAccountHandle connectionManagerPhoneAccount, ConnectionRequest request) {
         super.onCreateIncomingConnectionFailed(connectionManagerPhoneAccount, request);
-        Log.w(TAG, "[VoiceConnectionService] onCreateIncomingConnectionFailed: " + request);
+        CallKeepLog.w("[VoiceConnectionService] onCreateIncomingConnectionFailed: {}", request);
+        FlightRecorder.record(FlightRecorder.CATEGORY_CALLBACK, "onCreateIncomingConnectionFailed", request.getExtras().getString(EXTRA_CALL_UUID), 0);
 
         Bundle extras = request.getExtras();
-        HashMap<String, String> extrasMap = this.bundleToMap(extras);
-
-        String callerNumber = request.getAddress().toString();
-        if (callerNumber.contains(":")) {
-            //CallerNumber contains a schema which we'll separate out
-            int schemaIndex = callerNumber.indexOf(":");
-            String number = callerNumber.substring(schemaIndex + 1);
-            String schema = callerNumber.substring(0, schemaIndex);
-
-            extrasMap.put(EXTRA_CALL_NUMBER, number);
-            extrasMap.put(EXTRA_CALL_NUMBER_SCHEMA, schema);
-        } else {
-            extrasMap.put(EXTRA_CALL_NUMBER, callerNumber);
-        }
+        HashMap<String, String> extrasMap = ConnectionExtras.bundleToMap(extras);
+        ConnectionExtras.putCallNumber(extrasMap, request.getAddress().toString());
 
         sendCallRequestToActivity(ACTION_ON_CREATE_CONNECTION_FAILED, extrasMap, true);
     }
@@ -491,17 +492,13 @@ public class VoiceConnectionService extends ConnectionService {
             @Override
             public void run() {
             // Run this in a Looper to avoid : java.lang.RuntimeException: Can't create handler inside thread Thread
-                int count = delayedEvents.size();
-                Log.d(TAG, "[VoiceConnectionService] startObserving, event count: " + count);
+                List<CallEvent> events = delayedEvents.drain();
+                CallKeepLog.d("[VoiceConnectionService] startObserving, event count: {}, dropped: {}", events.size(), delayedEvents.getDroppedCount());
 
-                for (Bundle event : delayedEvents) {
-                    String action = event.getString("action");
-                    HashMap attributeMap = (HashMap) event.getSerializable("attributeMap");
-
-                    currentConnectionService.sendCallRequestToActivity(action, attributeMap, false);
+                for (CallEvent event : events) {
+                    dispatchCallEvent(event, true);
                 }
-
-                delayedEvents = new ArrayList<Bundle>();
+                delayedEvents.acknowledge();
             }
         });
     }
@@ -509,81 +506,63 @@ public class VoiceConnectionService extends ConnectionService {
     /*
      * Send call request to the RNCallKeepModule
      */
-    private void sendCallRequestToActivity(final String action, @Nullable final HashMap attributeMap, final boolean retry) {
-        final VoiceConnectionService instance = this;
-        final Handler handler = new Handler();
-
-        Log.d(TAG, "[VoiceConnectionService] sendCallRequestToActivity, action:" + action);
-
-        handler.post(new Runnable() {
-            @Override
-            public void run() {
-                Intent intent = new Intent(action);
-                Bundle extras = new Bundle();
-                extras.putString("action", action);
-
-                if (attributeMap != null) {
-                    extras.putSerializable("attributeMap", attributeMap);
-                    intent.putExtras(extras);
-                }
+    private void sendCallRequestToActivity(final String action, @Nullable final HashMap<String, String> attributeMap, final boolean retry) {
+        CallKeepLog.d("[VoiceConnectionService] sendCallRequestToActivity, action:{}", action);
 
-                boolean result = LocalBroadcastManager.getInstance(instance).sendBroadcast(intent);
-                if (!result && retry) {
-                    // Event will be sent later when a listener will be available.
-                    delayedEvents.add(extras);
-                }
-            }
-        });
+        dispatchCallEvent(new CallEvent(action, attributeMap), retry);
     }
 
-    private HashMap<String, String> bundleToMap(Bundle extras) {
-        HashMap<String, String> extrasMap = new HashMap<>();
-        Set<String> keySet = extras.keySet();
-        Iterator<String> iterator = keySet.iterator();
+    /*
+     * Send an event to the RNCallKeepModule without a running ConnectionService, kept until a listener is available
+     */
+    public static void postCallEvent(Context context, CallEvent event) {
+        restoreDelayedEvents(context);
+        dispatchCallEvent(event, true);
+    }
 
-        while(iterator.hasNext()) {
-            String key = iterator.next();
-            if (extras.get(key) != null) {
-                extrasMap.put(key, extras.get(key).toString());
-            }
+    /**
+     * @param retry keeps the event until a listener is available, instead of dropping it.
+     */
+    static void dispatchCallEvent(CallEvent event, boolean retry) {
+        boolean result = CallEventBus.post(event);
+        if (!result && retry) {
+            // Event will be sent later when a listener will be available.
+            delayedEvents.add(event, event.isEssential());
         }
-        return extrasMap;
+    }
+
+    public static DelayedEventQueue<CallEvent> getDelayedEvents() {
+        return delayedEvents;
     }
 
     /**
-     * https://stackoverflow.com/questions/5446565/android-how-do-i-check-if-activity-is-running
-     *
      * @param context Context
-     * @return boolean
+     * @return true when an activity of the application exists, even in the background.
      */
     public static boolean isRunning(Context context) {
-        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
-        List<RunningTaskInfo> tasks = activityManager.getRunningTasks(Integer.MAX_VALUE);
+        AppStateTracker.install(context);
 
-        for (RunningTaskInfo task : tasks) {
-            if (context.getPackageName().equalsIgnoreCase(task.baseActivity.getPackageName())) {
-                return true;
-            }
+        if (!AppStateTracker.isRunning()) {
+            CallKeepLog.d("[VoiceConnectionService] isRunning: no running activity found.");
+            return false;
         }
 
-        Log.d(TAG, "[VoiceConnectionService] isRunning: no running package found.");
-
-        return false;
+        return true;
     }
 
-    private void checkForAppReachability(final String callUUID, final Integer timeout) {
+    private void checkForAppReachability(final String callUUID, final int timeout) {
         final VoiceConnectionService instance = this;
 
-        new android.os.Handler().postDelayed(new Runnable() {
+        CallTimers.schedule(callUUID, "checkForAppReachability", new Runnable() {
             public void run() {
                 if (instance.isReachable) {
                     return;
                 }
                 Connection conn = VoiceConnectionService.getConnection(callUUID);
-                Log.w(TAG, "[VoiceConnectionService] checkForAppReachability timeout after " + timeout + " ms, isReachable:" + instance.isReachable + ", uuid: " + callUUID);
+                CallKeepLog.w("[VoiceConnectionService] checkForAppReachability timeout after {} ms, isReachable:{}, uuid: {}", timeout, instance.isReachable, callUUID);
 
                 if (conn == null) {
-                    Log.w(TAG, "[VoiceConnectionService] checkForAppReachability timeout, no connection to close with uuid: " + callUUID);
+                    CallKeepLog.w("[VoiceConnectionService] checkForAppReachability timeout, no connection to close with uuid: {}", callUUID);
 
                     return;
                 }
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.HeadlessJsTaskService;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.jstasks.HeadlessJsTaskContext;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Starts at most one headless task at a time to wake up the JS application.
+ *
+ * Wake up requests posted in the same main looper turn are started as one task carrying all their call UUIDs,
+ * requests coming while the task runs are merged into it: once JS is up, these calls reach it with the
+ * regular events. The task is finished as soon as JS calls `setReachable()` or when all its calls have ended,
+ * which releases the wake lock.
+ */
+public class WakeUpCoordinator {
+    public static final String STATE_IDLE = "idle";
+    public static final String STATE_STARTING = "starting";
+    public static final String STATE_RUNNING = "running";
+
+    private static class WakeUpRequest {
+        final String uuid;
+        final String number;
+        final String displayName;
+
+        WakeUpRequest(String uuid, String number, String displayName) {
+            this.uuid = uuid;
+            this.number = number;
+            this.displayName = displayName;
+        }
+    }
+
+    private static final Object lock = new Object();
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+    private static final List<WakeUpRequest> batch = new ArrayList<>();
+    // Calls waiting for the running task
+    private static final Set<String> taskCalls = new HashSet<>();
+    private static String state = STATE_IDLE;
+    private static long runningSince = 0;
+    private static long taskTimeout = 0;
+    private static int taskId = -1;
+    // JS was reachable before the task reported its start: the task starting before this time is finished at once
+    private static long finishOnStartUntil = 0;
+    private static long startedCount = 0;
+    private static long mergedCount = 0;
+    private static long cancelledCount = 0;
+
+    public static void wakeUp(Context context, @Nullable String uuid, @Nullable String number, @Nullable String displayName) {
+        synchronized (lock) {
+            // The task may never have started, or never reported its end
+            if (state == STATE_RUNNING && SystemClock.elapsedRealtime() - runningSince > taskTimeout) {
+                CallKeepLog.w("[WakeUpCoordinator] previous wake up timed out, taskId: {}", taskId);
+                reset();
+            }
+
+            if (state == STATE_RUNNING) {
+                addTaskCall(uuid);
+                mergedCount++;
+                CallKeepLog.d("[WakeUpCoordinator] wakeUp merged in the running task, uuid: {}", uuid);
+                return;
+            }
+
+            batch.add(new WakeUpRequest(uuid, number, displayName));
+            if (state == STATE_STARTING) {
+                mergedCount++;
+                CallKeepLog.d("[WakeUpCoordinator] wakeUp merged in the starting task, uuid: {}", uuid);
+                return;
+            }
+            state = STATE_STARTING;
+        }
+
+        final Context appContext = context.getApplicationContext();
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                start(appContext);
+            }
+        });
+    }
+
+    private static void start(Context context) {
+        long timeout = RNCallKeepModule.getSettings(context).getHeadlessTask().getTimeout();
+        List<WakeUpRequest> requests;
+        synchronized (lock) {
+            requests = new ArrayList<>(batch);
+            batch.clear();
+            for (WakeUpRequest request : requests) {
+                addTaskCall(request.uuid);
+            }
+            state = STATE_RUNNING;
+            runningSince = SystemClock.elapsedRealtime();
+            taskTimeout = timeout;
+        }
+
+        WakeUpRequest first = requests.get(0);
+        String[] uuids = new String[requests.size()];
+        for (int i = 0; i < uuids.length; i++) {
+            uuids[i] = requests.get(i).uuid;
+        }
+
+        Intent headlessIntent = new Intent(context, RNCallKeepBackgroundMessagingService.class);
+        headlessIntent.putExtra("callUUID", first.uuid);
+        headlessIntent.putExtra("name", first.displayName);
+        headlessIntent.putExtra("handle", first.number);
+        headlessIntent.putExtra("callUUIDs", uuids);
+
+        CallKeepLog.d("[WakeUpCoordinator] start, uuids: {}, first uuid: {}, number: {}, displayName: {}", uuids.length, first.uuid, first.number, first.displayName);
+
+        ComponentName name = context.startService(headlessIntent);
+        if (name == null) {
+            CallKeepLog.w("[WakeUpCoordinator] start, unable to start the headless service");
+            synchronized (lock) {
+                reset();
+            }
+            return;
+        }
+
+        synchronized (lock) {
+            startedCount++;
+        }
+        CallKeepLog.d("[WakeUpCoordinator] start, acquiring lock for application: {}", name);
+        HeadlessJsTaskService.acquireWakeLockNow(context);
+    }
+
+    static void onTaskStarted(int id) {
+        synchronized (lock) {
+            if (SystemClock.elapsedRealtime() > finishOnStartUntil) {
+                if (state == STATE_RUNNING && taskId == -1) {
+                    taskId = id;
+                }
+                return;
+            }
+            finishOnStartUntil = 0;
+        }
+
+        CallKeepLog.d("[WakeUpCoordinator] onTaskStarted, JS already reachable, finishing taskId: {}", id);
+        RNCallKeepModule module = RNCallKeepModule.instance;
+        ReactContext reactContext = module != null ? module.getContext() : null;
+        if (reactContext != null) {
+            finishTask(reactContext, id);
+        }
+    }
+
+    static void onTaskFinished(int id) {
+        synchronized (lock) {
+            if (id == taskId) {
+                reset();
+            }
+        }
+    }
+
+    /**
+     * Finishes the running wake up task once JS is ready, the headless service then stops and releases its wake lock.
+     */
+    public static void onReachable(@Nullable ReactContext reactContext) {
+        final int id;
+        synchronized (lock) {
+            if (state != STATE_RUNNING) {
+                return;
+            }
+            id = taskId;
+            if (id == -1) {
+                finishOnStartUntil = runningSince + taskTimeout;
+            }
+            reset();
+        }
+
+        CallKeepLog.d("[WakeUpCoordinator] onReachable, finishing taskId: {}", id);
+        if (id != -1 && reactContext != null) {
+            finishTask(reactContext, id);
+        }
+    }
+
+    /**
+     * Cancels the running wake up task when all the calls it was started for have ended.
+     */
+    public static void onCallEnded(@Nullable Context context, @Nullable String uuid) {
+        final int id;
+        synchronized (lock) {
+            if (state != STATE_RUNNING || !taskCalls.remove(uuid) || !taskCalls.isEmpty()) {
+                return;
+            }
+            id = taskId;
+            cancelledCount++;
+            reset();
+        }
+
+        CallKeepLog.d("[WakeUpCoordinator] onCallEnded, cancelling taskId: {}, uuid: {}", id, uuid);
+        RNCallKeepModule module = RNCallKeepModule.instance;
+        ReactContext reactContext = module != null ? module.getContext() : null;
+        if (id != -1 && reactContext != null) {
+            finishTask(reactContext, id);
+        } else if (context != null) {
+            // The task did not start yet, stopping the service releases the wake lock
+            context.stopService(new Intent(context, RNCallKeepBackgroundMessagingService.class));
+        }
+    }
+
+    private static void finishTask(final ReactContext reactContext, final int id) {
+        // Tasks are handled on the UI thread
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                HeadlessJsTaskContext taskContext = HeadlessJsTaskContext.getInstance(reactContext);
+                if (taskContext.isTaskRunning(id)) {
+                    taskContext.finishTask(id);
+                }
+            }
+        });
+    }
+
+    public static String getState() {
+        synchronized (lock) {
+            return state;
+        }
+    }
+
+    public static long getStartedCount() {
+        synchronized (lock) {
+            return startedCount;
+        }
+    }
+
+    public static long getMergedCount() {
+        synchronized (lock) {
+            return mergedCount;
+        }
+    }
+
+    public static long getCancelledCount() {
+        synchronized (lock) {
+            return cancelledCount;
+        }
+    }
+
+    // Called with the lock held
+    private static void addTaskCall(@Nullable String uuid) {
+        if (uuid != null) {
+            taskCalls.add(uuid);
+        }
+    }
+
+    // Called with the lock held
+    private static void reset() {
+        state = STATE_IDLE;
+        runningSince = 0;
+        taskId = -1;
+        taskCalls.clear();
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.Manifest;
+import android.app.Application;
+import android.os.Build;
+import android.os.Looper;
+import android.os.Message;
+import android.os.MessageQueue;
+import android.telecom.CallAudioState;
+import android.telecom.Connection;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowApplication;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Load harness: calls arrive at a fixed rate and stay up until `concurrency` newer calls are active,
+ * like an agent juggling calls (each new call puts the previous one on hold).
+ *
+ * Calls go through the React methods, the fake Telecom framework, the ConnectionService and the
+ * VoiceConnection callbacks, with events emitted to a fake JS side.
+ * Throughput and latencies are measured on the wall clock, arrivals and timers run on the
+ * Robolectric clock. Parameters are system properties:
+ *
+ * - `callkeep.load.calls`: number of calls (default: 300)
+ * - `callkeep.load.concurrency`: number of calls up at the same time (default: 50)
+ * - `callkeep.load.arrivalRate`: calls per second (default: 20)
+ * - `callkeep.load.outgoingPercent`: share of outgoing calls (default: 30)
+ * - `callkeep.load.eventBatchingWindow`: `eventBatchingWindow` setting in ms (default: 0)
+ * - `callkeep.load.reachabilityTimeout`: `displayCallReachabilityTimeout` setting in ms (default: none)
+ *
+ * eg: `./gradlew test --tests '*CallLoadTest' -Dcallkeep.load.calls=2000 -Dcallkeep.load.concurrency=200`
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.P, shadows = FakeTelecomManager.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class CallLoadTest {
+    private static final int CALLS = Integer.getInteger("callkeep.load.calls", 300);
+    private static final int CONCURRENCY = Integer.getInteger("callkeep.load.concurrency", 50);
+    private static final int ARRIVAL_RATE = Integer.getInteger("callkeep.load.arrivalRate", 20);
+    private static final int OUTGOING_PERCENT = Integer.getInteger("callkeep.load.outgoingPercent", 30);
+    private static final int EVENT_BATCHING_WINDOW = Integer.getInteger("callkeep.load.eventBatchingWindow", 0);
+    private static final int REACHABILITY_TIMEOUT = Integer.getInteger("callkeep.load.reachabilityTimeout", 0);
+
+    private static final CallAudioState SPEAKER = new CallAudioState(false, CallAudioState.ROUTE_SPEAKER,
+        CallAudioState.ROUTE_EARPIECE | CallAudioState.ROUTE_SPEAKER);
+
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+    private final LatencyHistogram queueDepths = new LatencyHistogram();
+
+    private JavaOnlyNativeCollections nativeCollections;
+    private TestReactContext reactContext;
+    private RNCallKeepModule module;
+
+    @Before
+    public void setUp() {
+        nativeCollections = JavaOnlyNativeCollections.open();
+
+        Application application = RuntimeEnvironment.application;
+        application.getApplicationInfo().nonLocalizedLabel = "CallKeep load";
+        ShadowApplication shadowApplication = Shadow.extract(application);
+        shadowApplication.grantPermissions(
+            Manifest.permission.CALL_PHONE,
+            Manifest.permission.READ_PHONE_STATE,
+            Manifest.permission.READ_PHONE_NUMBERS,
+            Manifest.permission.RECORD_AUDIO
+        );
+
+        VoiceConnectionService service = Robolectric.setupService(VoiceConnectionService.class);
+        FakeTelecomManager.setConnectionService(service);
+
+        JavaOnlyMap options = new JavaOnlyMap();
+        options.putString("appName", "CallKeep load");
+        options.putBoolean("selfManaged", true);
+        options.putInt("eventBatchingWindow", EVENT_BATCHING_WINDOW);
+        if (REACHABILITY_TIMEOUT > 0) {
+            options.putInt("displayCallReachabilityTimeout", REACHABILITY_TIMEOUT);
+        }
+
+        reactContext = new TestReactContext(application);
+        module = RNCallKeepModule.getInstance(reactContext, true);
+        module.setup(options);
+        module.setReachable();
+        idleMainLooper();
+    }
+
+    @After
+    public void tearDown() {
+        module.endAllCalls();
+        idleMainLooper();
+        RNCallKeepModule.instance = null;
+        nativeCollections.close();
+    }
+
+    @Test
+    public void sustainsConcurrentCalls() {
+        Deque<String> liveCalls = new ArrayDeque<>();
+        String activeCall = null;
+        int failedCalls = 0;
+        long peakHeapPerCall = -1;
+        long heapBefore = usedHeap();
+        long arrivalInterval = TimeUnit.SECONDS.toMillis(1) / ARRIVAL_RATE;
+        long startTime = System.nanoTime();
+
+        for (int i = 0; i < CALLS; i++) {
+            mainLooper().idleFor(arrivalInterval, TimeUnit.MILLISECONDS);
+
+            String uuid = UUID.randomUUID().toString();
+            String number = String.format(Locale.US, "+336%08d", i);
+            boolean outgoing = i % 100 < OUTGOING_PERCENT;
+
+            long start = System.nanoTime();
+            if (outgoing) {
+                module.startCall(uuid, number, "Outgoing " + i);
+                record("startCall", start);
+            } else {
+                module.displayIncomingCall(uuid, number, "Incoming " + i);
+                record("displayIncomingCall", start);
+            }
+
+            queueDepths.record(mainQueueDepth());
+            start = System.nanoTime();
+            idleMainLooper();
+            record(outgoing ? "onCreateOutgoingConnection" : "onCreateIncomingConnection", start);
+
+            Connection connection = VoiceConnectionService.getConnection(uuid);
+            if (connection == null) {
+                failedCalls++;
+                continue;
+            }
+
+            if (!outgoing) {
+                start = System.nanoTime();
+                module.answerIncomingCall(uuid);
+                record("answerIncomingCall", start);
+            }
+
+            if (activeCall != null) {
+                start = System.nanoTime();
+                module.setOnHold(activeCall, true);
+                record("setOnHold", start);
+            }
+
+            start = System.nanoTime();
+            module.setCurrentCallActive(uuid);
+            record("setCurrentCallActive", start);
+            activeCall = uuid;
+            liveCalls.addLast(uuid);
+
+            start = System.nanoTime();
+            connection.onCallAudioStateChanged(SPEAKER);
+            record("onCallAudioStateChanged", start);
+
+            start = System.nanoTime();
+            connection.onPlayDtmfTone('1');
+            record("onPlayDtmfTone", start);
+
+            if (peakHeapPerCall < 0 && liveCalls.size() == CONCURRENCY) {
+                peakHeapPerCall = (usedHeap() - heapBefore) / CONCURRENCY;
+            }
+
+            while (liveCalls.size() > CONCURRENCY) {
+                start = System.nanoTime();
+                module.endCall(liveCalls.removeFirst());
+                record("endCall", start);
+            }
+        }
+
+        while (!liveCalls.isEmpty()) {
+            module.endCall(liveCalls.removeFirst());
+        }
+        idleMainLooper();
+
+        long elapsed = System.nanoTime() - startTime;
+        long heapAfter = usedHeap();
+
+        System.out.println(String.format(Locale.US,
+            "[CallLoadTest] %d calls, concurrency: %d, arrival rate: %d/s, outgoing: %d%%, failed: %d",
+            CALLS, CONCURRENCY, ARRIVAL_RATE, OUTGOING_PERCENT, failedCalls));
+        System.out.println(String.format(Locale.US,
+            "[CallLoadTest] throughput: %.1f calls/s, events sent to JS: %d",
+            CALLS * 1e9 / elapsed, reactContext.getEventCount()));
+        System.out.println(String.format(Locale.US,
+            "[CallLoadTest] retained heap per active call: %s, per ended call: %d bytes",
+            peakHeapPerCall < 0 ? "n/a" : peakHeapPerCall + " bytes", (heapAfter - heapBefore) / CALLS));
+        System.out.println(String.format(Locale.US,
+            "[CallLoadTest] main looper queue depth, mean: %.1f, p99: %d, max: %d",
+            queueDepths.getMean(), queueDepths.getValueAtPercentile(99), queueDepths.getMax()));
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            System.out.println(String.format(Locale.US,
+                "[CallLoadTest] %-28s count: %6d, p50: %6dus, p99: %6dus, max: %6dus",
+                entry.getKey(), histogram.getCount(), histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(99), histogram.getMax()));
+        }
+
+        assertEquals(0, failedCalls);
+        assertEquals(CALLS, FakeTelecomManager.getIncomingCallCount() + FakeTelecomManager.getOutgoingCallCount());
+        assertTrue("connections leaked: " + VoiceConnectionService.getCallRegistry().size(),
+            VoiceConnectionService.getCallRegistry().snapshot().isEmpty());
+    }
+
+    private void record(String name, long startNanos) {
+        LatencyHistogram histogram = latencies.get(name);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            latencies.put(name, histogram);
+        }
+        histogram.record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    private static ShadowLooper mainLooper() {
+        return Shadow.extract(Looper.getMainLooper());
+    }
+
+    private static void idleMainLooper() {
+        mainLooper().idle();
+    }
+
+    // Messages waiting in the main looper, including delayed ones (eg: reachability timeouts)
+    private static int mainQueueDepth() {
+        MessageQueue queue = Looper.getMainLooper().getQueue();
+        Message message = ReflectionHelpers.getField(queue, "mMessages");
+        int depth = 0;
+        while (message != null) {
+            depth++;
+            message = ReflectionHelpers.getField(message, "next");
+        }
+
+        return depth;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.os.Build;
+import android.telecom.Connection;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static io.wazo.callkeep.Constants.EXTRA_CALL_UUID;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.P)
+public class CallRegistryTest {
+    private CallRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new CallRegistry();
+    }
+
+    @Test
+    public void indexesCallsByStateAndNumber() {
+        VoiceConnection connection = put("a", "+331", Connection.STATE_RINGING);
+        put("b", "+331", Connection.STATE_ACTIVE);
+
+        CallRegistry.Snapshot snapshot = registry.snapshot();
+        assertSame(connection, snapshot.get("a"));
+        assertEquals(Collections.singleton("a"), snapshot.getUuidsByState(Connection.STATE_RINGING));
+        assertEquals(2, snapshot.getUuidsByNumber("+331").size());
+
+        registry.updateState("a", Connection.STATE_ACTIVE);
+        snapshot = registry.snapshot();
+        assertTrue(snapshot.getUuidsByState(Connection.STATE_RINGING).isEmpty());
+        assertEquals(2, snapshot.getUuidsByState(Connection.STATE_ACTIVE).size());
+
+        // A snapshot does not change afterwards
+        registry.remove("b");
+        assertEquals(2, snapshot.size());
+        assertEquals(Collections.singleton("a"), registry.snapshot().getUuidsByNumber("+331"));
+    }
+
+    @Test
+    public void diffsChangesSinceAVersion() {
+        put("a", "+331", Connection.STATE_RINGING);
+        put("b", "+332", Connection.STATE_DIALING);
+        long version = registry.snapshot().getVersion();
+
+        registry.updateAudioState("a", true, "SPEAKER");
+        // Unchanged values do not create a version
+        registry.updateAudioState("a", true, "SPEAKER");
+        registry.remove("b");
+        put("c", "+333", Connection.STATE_RINGING);
+
+        CallRegistry.Snapshot snapshot = registry.snapshot();
+        assertEquals(version + 3, snapshot.getVersion());
+        assertTrue(snapshot.canDiffFrom(version));
+        assertEquals(new HashSet<>(Arrays.asList("a", "c")), uuids(snapshot.getChangedSince(version)));
+        assertEquals(Collections.singletonList("b"), snapshot.getRemovedSince(version));
+        assertTrue(snapshot.getChangedSince(snapshot.getVersion()).isEmpty());
+        assertFalse(snapshot.canDiffFrom(snapshot.getVersion() + 1));
+    }
+
+    @Test
+    public void forgetsTheOldestTombstones() {
+        long version = registry.snapshot().getVersion();
+        for (int i = 0; i <= CallRegistry.MAX_REMOVED; i++) {
+            put("call-" + i, null, Connection.STATE_ACTIVE);
+            registry.remove("call-" + i);
+        }
+
+        CallRegistry.Snapshot snapshot = registry.snapshot();
+        assertFalse(snapshot.canDiffFrom(version));
+        List<String> removed = snapshot.getRemovedSince(version);
+        assertEquals(CallRegistry.MAX_REMOVED, removed.size());
+        assertFalse(removed.contains("call-0"));
+        assertTrue(removed.contains("call-" + CallRegistry.MAX_REMOVED));
+    }
+
+    @Test
+    public void dropsTheTombstoneOfARegisteredCall() {
+        put("a", null, Connection.STATE_RINGING);
+        long version = registry.snapshot().getVersion();
+        registry.remove("a");
+        put("a", null, Connection.STATE_RINGING);
+
+        assertTrue(registry.snapshot().getRemovedSince(version).isEmpty());
+        assertNull(registry.remove("unknown"));
+    }
+
+    private VoiceConnection put(String uuid, String number, int state) {
+        HashMap<String, String> handle = new HashMap<>();
+        handle.put(EXTRA_CALL_UUID, uuid);
+        VoiceConnection connection = new VoiceConnection(RuntimeEnvironment.application, handle);
+        registry.put(uuid, connection, number, null, state);
+
+        return connection;
+    }
+
+    private static Set<String> uuids(List<CallRegistry.CallInfo> calls) {
+        Set<String> uuids = new HashSet<>();
+        for (CallRegistry.CallInfo call : calls) {
+            uuids.add(call.getUuid());
+        }
+
+        return uuids;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.P)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class DelayedEventQueueTest {
+    private static final String JOURNAL_NAME = "rn-callkeep-queue-test";
+
+    // Events are their name, essential ones start with `!`
+    private static final EventJournal.Codec<String> CODEC = new EventJournal.Codec<String>() {
+        @Override
+        public String getName(String event) {
+            return event;
+        }
+
+        @Override
+        public Bundle getData(String event) {
+            return null;
+        }
+
+        @Override
+        public String create(String name, Bundle data) {
+            return name;
+        }
+    };
+
+    private Context context;
+    private DelayedEventQueue<String> queue;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.application;
+        new File(context.getNoBackupFilesDir(), JOURNAL_NAME).delete();
+        queue = new DelayedEventQueue<>();
+    }
+
+    @Test
+    public void evictsIntermediateEventsFirst() {
+        queue.configure(3, 0);
+        add("!answer");
+        add("mute");
+        add("dtmf");
+        add("!end");
+
+        assertEquals(Arrays.asList("!answer", "dtmf", "!end"), queue.peek());
+        assertEquals(1, queue.getEvictedCount());
+
+        add("!start");
+        add("!answer2");
+        assertEquals(Arrays.asList("!end", "!start", "!answer2"), queue.peek());
+        assertEquals(3, queue.getEvictedCount());
+    }
+
+    @Test
+    public void expiresIntermediateEventsOnly() {
+        queue.configure(10, 1000);
+        add("!answer");
+        add("mute");
+        mainLooper().idleFor(500, TimeUnit.MILLISECONDS);
+        add("dtmf");
+        mainLooper().idleFor(600, TimeUnit.MILLISECONDS);
+
+        assertEquals(Arrays.asList("!answer", "dtmf"), queue.peek());
+        assertEquals(1, queue.getExpiredCount());
+    }
+
+    @Test
+    public void shrinksToANewCapacity() {
+        queue.configure(10, 0);
+        add("!answer");
+        add("mute");
+        add("dtmf");
+        queue.configure(1, 0);
+
+        assertEquals(Collections.singletonList("!answer"), queue.peek());
+    }
+
+    @Test
+    public void restoresJournaledEvents() {
+        queue.configure(10, 0);
+        queue.attachJournal(openJournal(), CODEC);
+        add("!answer");
+        add("mute");
+
+        DelayedEventQueue<String> restored = new DelayedEventQueue<>();
+        restored.configure(10, 0);
+        restored.attachJournal(openJournal(), CODEC);
+
+        assertEquals(Arrays.asList("!answer", "mute"), restored.peek());
+    }
+
+    @Test
+    public void keepsDrainedEventsJournaledUntilAcknowledged() {
+        queue.configure(10, 0);
+        queue.attachJournal(openJournal(), CODEC);
+        add("!answer");
+        add("!end");
+
+        assertEquals(Arrays.asList("!answer", "!end"), queue.drain());
+        assertEquals(0, queue.size());
+        // Process death before delivery: the events are restored
+        assertEquals(Arrays.asList("!answer", "!end"), restore().peek());
+
+        add("!start");
+        queue.acknowledge();
+        assertEquals(Collections.singletonList("!start"), restore().peek());
+    }
+
+    private void add(String event) {
+        queue.add(event, event.startsWith("!"));
+    }
+
+    private DelayedEventQueue<String> restore() {
+        DelayedEventQueue<String> restored = new DelayedEventQueue<>();
+        EventJournal journal = openJournal();
+        restored.attachJournal(journal, CODEC);
+
+        return restored;
+    }
+
+    private EventJournal openJournal() {
+        return EventJournal.open(context, JOURNAL_NAME);
+    }
+
+    private static ShadowLooper mainLooper() {
+        return Shadow.extract(Looper.getMainLooper());
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Bundle;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.P)
+public class EventJournalTest {
+    private static final String NAME = "rn-callkeep-journal-test";
+    // Header, then the first record frame: [int length][int crc32]
+    private static final int FIRST_RECORD = 8;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.application;
+        new File(context.getNoBackupFilesDir(), NAME).delete();
+    }
+
+    @Test
+    public void readsRecordsBackWithTheirTypes() {
+        Bundle route = new Bundle();
+        route.putString("name", "Speaker");
+        route.putBoolean("selected", true);
+
+        Bundle data = new Bundle();
+        data.putString("callUUID", "0f6fa1a0-5b8b-4a5e-9a57-5b4f3b1f3f6a");
+        data.putBoolean("hasVideo", false);
+        data.putInt("reason", 2);
+        data.putLong("version", 1L << 40);
+        data.putDouble("duration", 12.5);
+        data.putBundle("route", route);
+        data.putSerializable("routes", new ArrayList<Object>(Arrays.asList("Phone", 3.0, null, route)));
+        data.putStringArray("names", new String[] { "a", "b" });
+
+        EventJournal journal = open();
+        assertTrue(journal.append("RNCallKeepDidRecordCallMetric", data, true, 1234L));
+        assertTrue(journal.append("RNCallKeepDidPerformDTMFAction", null, false, 5678L));
+
+        List<EventJournal.Record> records = open().readAll();
+        assertEquals(2, records.size());
+
+        EventJournal.Record record = records.get(0);
+        assertEquals("RNCallKeepDidRecordCallMetric", record.name);
+        assertTrue(record.essential);
+        assertEquals(1234L, record.timestamp);
+        assertEquals("0f6fa1a0-5b8b-4a5e-9a57-5b4f3b1f3f6a", record.data.getString("callUUID"));
+        assertEquals(Boolean.FALSE, record.data.get("hasVideo"));
+        assertEquals(2, record.data.get("reason"));
+        assertEquals(1L << 40, record.data.get("version"));
+        assertEquals(12.5, record.data.get("duration"));
+
+        Bundle restoredRoute = record.data.getBundle("route");
+        assertEquals("Speaker", restoredRoute.getString("name"));
+        assertTrue(restoredRoute.getBoolean("selected"));
+
+        List<?> routes = (List<?>) record.data.getSerializable("routes");
+        assertEquals(4, routes.size());
+        assertEquals("Phone", routes.get(0));
+        assertEquals(3.0, routes.get(1));
+        assertEquals(null, routes.get(2));
+        assertEquals("Speaker", ((Bundle) routes.get(3)).getString("name"));
+        assertEquals(Arrays.asList("a", "b"), record.data.getSerializable("names"));
+
+        assertEquals("RNCallKeepDidPerformDTMFAction", records.get(1).name);
+        assertFalse(records.get(1).essential);
+        assertTrue(records.get(1).data.isEmpty());
+    }
+
+    @Test
+    public void ignoresRecordsAfterACorruptedOne() throws IOException {
+        EventJournal journal = open();
+        journal.append("first", bundleOf("callUUID", "1"), true, 1);
+        journal.append("second", bundleOf("callUUID", "2"), true, 2);
+        journal.append("third", bundleOf("callUUID", "3"), true, 3);
+
+        // Flip a byte in the payload of the second record, as a write torn by process death would
+        int secondRecord = FIRST_RECORD + 8 + readInt(FIRST_RECORD);
+        writeByte(secondRecord + 8 + 3, (byte) ~readByte(secondRecord + 8 + 3));
+
+        journal = open();
+        List<EventJournal.Record> records = journal.readAll();
+        assertEquals(1, records.size());
+        assertEquals("first", records.get(0).name);
+
+        // Writing resumes after the last valid record
+        assertTrue(journal.append("fourth", null, false, 4));
+        records = open().readAll();
+        assertEquals(2, records.size());
+        assertEquals("fourth", records.get(1).name);
+    }
+
+    @Test
+    public void ignoresARecordWithoutItsLength() throws IOException {
+        EventJournal journal = open();
+        journal.append("first", null, true, 1);
+        journal.append("second", null, true, 2);
+
+        // The length is written last: a record interrupted before has a length of 0
+        int secondRecord = FIRST_RECORD + 8 + readInt(FIRST_RECORD);
+        writeInt(secondRecord, 0);
+
+        List<EventJournal.Record> records = open().readAll();
+        assertEquals(1, records.size());
+        assertEquals("first", records.get(0).name);
+    }
+
+    @Test
+    public void rejectsARecordWhenFull() {
+        EventJournal journal = open();
+        Bundle data = bundleOf("payload", new String(new char[1000]).replace('\0', 'x'));
+
+        int appended = 0;
+        while (journal.append("event", data, false, appended)) {
+            appended++;
+        }
+
+        assertTrue(appended > 0);
+        assertEquals(appended, open().readAll().size());
+
+        journal.reset();
+        assertTrue(open().readAll().isEmpty());
+    }
+
+    private EventJournal open() {
+        EventJournal journal = EventJournal.open(context, NAME);
+        assertNotNull(journal);
+
+        return journal;
+    }
+
+    private static Bundle bundleOf(String key, String value) {
+        Bundle bundle = new Bundle();
+        bundle.putString(key, value);
+
+        return bundle;
+    }
+
+    private File file() {
+        return new File(context.getNoBackupFilesDir(), NAME);
+    }
+
+    private int readInt(int position) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(file(), "r")) {
+            file.seek(position);
+            return file.readInt();
+        }
+    }
+
+    private byte readByte(int position) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(file(), "r")) {
+            file.seek(position);
+            return file.readByte();
+        }
+    }
+
+    private void writeInt(int position, int value) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(file(), "rw")) {
+            file.seek(position);
+            file.writeInt(value);
+        }
+    }
+
+    private void writeByte(int position, byte value) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(file(), "rw")) {
+            file.seek(position);
+            file.writeByte(value);
+        }
+    }
+}
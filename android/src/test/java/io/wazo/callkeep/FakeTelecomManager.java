@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.telecom.Connection;
+import android.telecom.ConnectionRequest;
+import android.telecom.PhoneAccount;
+import android.telecom.PhoneAccountHandle;
+import android.telecom.TelecomManager;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.Resetter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fake of the Telecom framework: registered phone accounts are kept in memory and call requests are
+ * delivered to the {@link VoiceConnectionService} on the main looper, like the system does after a binder call.
+ */
+@Implements(TelecomManager.class)
+public class FakeTelecomManager {
+    private static final Map<PhoneAccountHandle, PhoneAccount> phoneAccounts = new HashMap<>();
+    private static VoiceConnectionService connectionService;
+    private static int incomingCallCount = 0;
+    private static int outgoingCallCount = 0;
+    private static int failedCallCount = 0;
+
+    public static void setConnectionService(VoiceConnectionService service) {
+        connectionService = service;
+    }
+
+    public static int getIncomingCallCount() {
+        return incomingCallCount;
+    }
+
+    public static int getOutgoingCallCount() {
+        return outgoingCallCount;
+    }
+
+    public static int getFailedCallCount() {
+        return failedCallCount;
+    }
+
+    @Resetter
+    public static void reset() {
+        phoneAccounts.clear();
+        connectionService = null;
+        incomingCallCount = 0;
+        outgoingCallCount = 0;
+        failedCallCount = 0;
+    }
+
+    @Implementation
+    protected void registerPhoneAccount(PhoneAccount account) {
+        phoneAccounts.put(account.getAccountHandle(), account);
+    }
+
+    @Implementation
+    protected PhoneAccount getPhoneAccount(PhoneAccountHandle handle) {
+        return phoneAccounts.get(handle);
+    }
+
+    @Implementation
+    protected void addNewIncomingCall(final PhoneAccountHandle handle, final Bundle extras) {
+        incomingCallCount++;
+        post(new Runnable() {
+            @Override
+            public void run() {
+                Uri address = extras.getParcelable(TelecomManager.EXTRA_INCOMING_CALL_ADDRESS);
+                ConnectionRequest request = new ConnectionRequest(handle, address, extras);
+                Connection connection = connectionService.onCreateIncomingConnection(handle, request);
+                if (connection == null) {
+                    failedCallCount++;
+                    connectionService.onCreateIncomingConnectionFailed(handle, request);
+                    return;
+                }
+
+                // Self managed calls are shown by the app
+                connection.onShowIncomingCallUi();
+            }
+        });
+    }
+
+    @Implementation
+    protected void placeCall(final Uri address, final Bundle extras) {
+        outgoingCallCount++;
+        post(new Runnable() {
+            @Override
+            public void run() {
+                PhoneAccountHandle handle = extras.getParcelable(TelecomManager.EXTRA_PHONE_ACCOUNT_HANDLE);
+                Bundle callExtras = extras.getBundle(TelecomManager.EXTRA_OUTGOING_CALL_EXTRAS);
+                ConnectionRequest request = new ConnectionRequest(handle, address, callExtras != null ? callExtras : new Bundle());
+                Connection connection = connectionService.onCreateOutgoingConnection(handle, request);
+                if (connection == null || connection.getState() == Connection.STATE_DISCONNECTED) {
+                    failedCallCount++;
+                }
+            }
+        });
+    }
+
+    private static void post(Runnable runnable) {
+        new Handler(Looper.getMainLooper()).post(runnable);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.facebook.soloader.SoLoader;
+
+import org.mockito.MockedConstruction;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Native React maps and arrays need the JNI bridge, which is not available in unit tests.
+ * While opened, each `WritableNativeMap` and `WritableNativeArray` created on the current thread
+ * is backed by a `JavaOnlyMap` or a `JavaOnlyArray`.
+ */
+public class JavaOnlyNativeCollections implements AutoCloseable {
+    private final MockedConstruction<WritableNativeMap> maps;
+    private final MockedConstruction<WritableNativeArray> arrays;
+
+    public static JavaOnlyNativeCollections open() {
+        // Turns the `reactnativejni` library load of the native collections into a no-op
+        SoLoader.setInTestMode();
+
+        return new JavaOnlyNativeCollections();
+    }
+
+    private JavaOnlyNativeCollections() {
+        maps = Mockito.mockConstruction(WritableNativeMap.class,
+            Mockito.withSettings().defaultAnswer(new DelegateAnswer(JavaOnlyMap.class)));
+        arrays = Mockito.mockConstruction(WritableNativeArray.class,
+            Mockito.withSettings().defaultAnswer(new DelegateAnswer(JavaOnlyArray.class)));
+    }
+
+    @Override
+    public void close() {
+        maps.close();
+        arrays.close();
+    }
+
+    private static class DelegateAnswer implements Answer<Object> {
+        private final Class<?> delegateClass;
+        private final Map<Object, Object> delegates = new IdentityHashMap<>();
+
+        DelegateAnswer(Class<?> delegateClass) {
+            this.delegateClass = delegateClass;
+        }
+
+        @Override
+        public Object answer(InvocationOnMock invocation) throws Throwable {
+            Object delegate = delegates.get(invocation.getMock());
+            if (delegate == null) {
+                delegate = delegateClass.newInstance();
+                delegates.put(invocation.getMock(), delegate);
+            }
+
+            try {
+                return findMethod(invocation.getMethod()).invoke(delegate, invocation.getArguments());
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        // Signatures can differ between React Native versions (eg: `putMap(String, ReadableMap)`)
+        private Method findMethod(Method method) throws NoSuchMethodException {
+            try {
+                return delegateClass.getMethod(method.getName(), method.getParameterTypes());
+            } catch (NoSuchMethodException e) {
+                for (Method candidate : delegateClass.getMethods()) {
+                    if (candidate.getName().equals(method.getName()) &&
+                        candidate.getParameterTypes().length == method.getParameterTypes().length) {
+                        return candidate;
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+}
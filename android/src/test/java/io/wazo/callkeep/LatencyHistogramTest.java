@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    public void keepsSmallValuesExact() {
+        for (long value = 0; value < 16; value++) {
+            assertEquals(value, LatencyHistogram.highestValueAt(LatencyHistogram.indexOf(value)));
+        }
+    }
+
+    @Test
+    public void boundsTheRelativeError() {
+        int previousIndex = -1;
+        for (long value = 1; value < (1L << 41); value += Math.max(1, value / 7)) {
+            int index = LatencyHistogram.indexOf(value);
+            long highest = LatencyHistogram.highestValueAt(index);
+
+            assertTrue("index decreased at " + value, index >= previousIndex);
+            assertTrue("bucket below " + value, highest >= value);
+            assertTrue("bucket too wide at " + value, highest - value <= value / 16);
+            previousIndex = index;
+        }
+    }
+
+    @Test
+    public void putsTheBucketBoundariesInTheRightBucket() {
+        // 1000µs is in [992, 1023]
+        assertEquals(LatencyHistogram.indexOf(992), LatencyHistogram.indexOf(1023));
+        assertEquals(LatencyHistogram.indexOf(1023) + 1, LatencyHistogram.indexOf(1024));
+        assertEquals(1023, LatencyHistogram.highestValueAt(LatencyHistogram.indexOf(1000)));
+    }
+
+    @Test
+    public void reportsPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500.5, histogram.getMean(), 0.001);
+        assertWithin(500, histogram.getValueAtPercentile(50));
+        assertWithin(990, histogram.getValueAtPercentile(99));
+        assertEquals(1000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void clampsOutOfRangeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(1L << 50);
+
+        assertEquals(0, histogram.getMin());
+        assertEquals(1L << 50, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        // Values above the range are counted in the last bucket, ending at 2^41 - 1
+        assertEquals((1L << 41) - 1, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected about " + expected + ", got " + actual, actual >= expected && actual - expected <= expected / 16);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import android.content.Context;
+
+import com.facebook.react.bridge.JavaScriptModule;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.modules.core.DeviceEventManagerModule.RCTDeviceEventEmitter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * React context bound to a fake JS side: events sent to JS are counted by name.
+ */
+public class TestReactContext extends ReactApplicationContext {
+    private final Map<String, Integer> eventCounts = new HashMap<>();
+    private int eventCount = 0;
+
+    private final RCTDeviceEventEmitter emitter = new RCTDeviceEventEmitter() {
+        @Override
+        public void emit(String eventName, Object data) {
+            Integer count = eventCounts.get(eventName);
+            eventCounts.put(eventName, count == null ? 1 : count + 1);
+            eventCount++;
+        }
+    };
+
+    public TestReactContext(Context context) {
+        super(context);
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public Map<String, Integer> getEventCounts() {
+        return eventCounts;
+    }
+
+    @Override
+    public boolean hasActiveCatalystInstance() {
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends JavaScriptModule> T getJSModule(Class<T> jsInterface) {
+        return (T) emitter;
+    }
+}
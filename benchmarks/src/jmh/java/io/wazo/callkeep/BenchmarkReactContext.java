@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package io.wazo.callkeep;
+
+import android.content.BroadcastReceiver;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+
+import com.facebook.react.bridge.JavaScriptModule;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.modules.core.DeviceEventManagerModule.RCTDeviceEventEmitter;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * React context bound to a fake JS side: events sent to JS are counted and the last one is kept.
+ */
+public class BenchmarkReactContext extends ReactApplicationContext {
+    public volatile String lastEventName;
+    public volatile Object lastEventData;
+    public long eventCount = 0;
+
+    private final RCTDeviceEventEmitter emitter = new RCTDeviceEventEmitter() {
+        @Override
+        public void emit(String eventName, Object data) {
+            lastEventName = eventName;
+            lastEventData = data;
+            eventCount++;
+        }
+    };
+
+    public BenchmarkReactContext() {
+        super(new BaseContext());
+    }
+
+    @Override
+    public boolean hasActiveCatalystInstance() {
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends JavaScriptModule> T getJSModule(Class<T> jsInterface) {
+        return (T) emitter;
+    }
+
+    private static class BaseContext extends Context {
+        private final Map<String, SharedPreferences> preferences = new HashMap<>();
+
+        @Override
+        public Object getSystemService(String name) {
+            return null;
+        }
+
+        @Override
+        public String getPackageName() {
+            return "io.wazo.callkeep.benchmarks";
+        }
+
+        @Override
+        public Context getApplicationContext() {
+            // Like a module without an application context yet: no journal nor telecom manager
+            return null;
+        }
+
+        @Override
+        public Resources getResources() {
+            return new Resources();
+        }
+
+        @Override
+        public synchronized SharedPreferences getSharedPreferences(String name, int mode) {
+            SharedPreferences sharedPreferences = preferences.get(name);
+            if (sharedPreferences == null) {
+                sharedPreferences = new InMemorySharedPreferences();
+                preferences.put(name, sharedPreferences);
+            }
+            return sharedPreferences;
+        }
+
+        @Override
+        public ApplicationInfo getApplicationInfo() {
+            return new ApplicationInfo();
+        }
+
+        @Override
+        public PackageManager getPackageManager() {
+            return null;
+        }
+
+        @Override
+        public File getFilesDir() {
+            return null;
+        }
+
+        @Override
+        public File getNoBackupFilesDir() {
+            return null;
+        }
+
+        @Override
+        public File getCacheDir() {
+            return null;
+        }
+
+        @Override
+        public ComponentName startService(Intent service) {
+            return null;
+        }
+
+        @Override
+        public boolean stopService(Intent service) {
+            return false;
+        }
+
+        @Override
+        public void startActivity(Intent intent) {
+        }
+
+        @Override
+        public void sendBroadcast(Intent intent) {
+        }
+
+        @Override
+        public Intent registerReceiver(BroadcastReceiver receiver, IntentFilter filter) {
+            return null;
+        }
+
+        @Override
+        public Intent registerReceiver(BroadcastReceiver receiver, IntentFilter filter, int flags) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Logging a call callback, eg: `onCallAudioStateChanged`, printed or not depending on the `logLevel` setting.
+ */
+@State(Scope.Thread)
+public class CallKeepLogBenchmark {
+    @Param({"debug", "warn"})
+    public String logLevel;
+
+    private String uuid;
+    private String number;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        CallKeepLog.setLevel(CallKeepLog.parseLevel(logLevel));
+        uuid = "0f6fa1a0-5b8b-4a5e-9a57-5b4f3b1f3f6a";
+        number = "+33612345678";
+
+        // Fills the ring for `dump`
+        for (int i = 0; i < CallKeepLog.CAPACITY; i++) {
+            log();
+        }
+    }
+
+    @Benchmark
+    public void log() {
+        CallKeepLog.d("[VoiceConnection] onCallAudioStateChanged, uuid: {}, number: {}, muted: {}", uuid, number, false);
+    }
+
+    @Benchmark
+    public void dump() {
+        CallKeepLog.dump();
+    }
+}
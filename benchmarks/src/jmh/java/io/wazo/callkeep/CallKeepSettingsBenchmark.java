@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package io.wazo.callkeep;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Settings parsing done by setSettings and fetchStoredSettings, and the read done on each call creation.
+ */
+@State(Scope.Thread)
+public class CallKeepSettingsBenchmark {
+    private ReadableMap options;
+    private CallKeepSettings settings;
+
+    @Setup
+    public void setup() throws JSONException {
+        options = MapUtils.convertJsonToMap(new JSONObject(MapUtilsBenchmark.SETTINGS));
+        settings = CallKeepSettings.fromJson(MapUtilsBenchmark.SETTINGS);
+    }
+
+    @Benchmark
+    public CallKeepSettings fromReadableMap() throws JSONException {
+        return CallKeepSettings.fromReadableMap(options);
+    }
+
+    // What fetchStoredSettings does with the JSON string stored in the SharedPreferences
+    @Benchmark
+    public CallKeepSettings parseStoredSettings() {
+        return CallKeepSettings.fromJson(MapUtilsBenchmark.SETTINGS);
+    }
+
+    @Benchmark
+    public String readForegroundSettings() {
+        CallKeepSettings.ForegroundService foregroundService = settings.getForegroundService();
+        return foregroundService != null ? foregroundService.getChannelId() : null;
+    }
+}
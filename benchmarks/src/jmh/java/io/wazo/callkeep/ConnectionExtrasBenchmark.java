@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package io.wazo.callkeep;
+
+import android.net.Uri;
+import android.os.Bundle;
+import android.telecom.TelecomManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+
+import static io.wazo.callkeep.Constants.EXTRA_CALLER_NAME;
+import static io.wazo.callkeep.Constants.EXTRA_CALL_UUID;
+import static io.wazo.callkeep.Constants.EXTRA_HAS_VIDEO;
+
+/**
+ * Conversion of the ConnectionRequest extras done for each call creation and outgoing call event.
+ */
+@State(Scope.Thread)
+public class ConnectionExtrasBenchmark {
+    private Bundle extras;
+    private String callerNumber;
+
+    @Setup
+    public void setup() {
+        // Extras of an incoming call, as built by displayIncomingCall
+        Uri uri = Uri.fromParts("tel", "+33612345678", null);
+        extras = new Bundle();
+        extras.putParcelable(TelecomManager.EXTRA_INCOMING_CALL_ADDRESS, uri);
+        extras.putString(EXTRA_CALLER_NAME, "John Doe");
+        extras.putString(EXTRA_CALL_UUID, "5a7b7b5e-8f1e-4d67-9c77-3f4b3c0c1f2a");
+        extras.putString(EXTRA_HAS_VIDEO, "false");
+
+        callerNumber = uri.toString();
+    }
+
+    @Benchmark
+    public HashMap<String, String> bundleToMap() {
+        return ConnectionExtras.bundleToMap(extras);
+    }
+
+    @Benchmark
+    public HashMap<String, String> splitCallNumber() {
+        HashMap<String, String> extrasMap = new HashMap<>();
+        ConnectionExtras.putCallNumber(extrasMap, callerNumber);
+        return extrasMap;
+    }
+
+    // Attributes of a new connection, as built by VoiceConnectionService.createConnection
+    @Benchmark
+    public HashMap<String, String> createConnectionExtras() {
+        HashMap<String, String> extrasMap = ConnectionExtras.bundleToMap(extras);
+        ConnectionExtras.putCallNumber(extrasMap, callerNumber);
+        return extrasMap;
+    }
+}
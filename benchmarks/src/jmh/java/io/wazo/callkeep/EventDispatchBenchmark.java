@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package io.wazo.callkeep;
+
+import android.telecom.CallAudioState;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+
+import static io.wazo.callkeep.Constants.EXTRA_CALLER_NAME;
+import static io.wazo.callkeep.Constants.EXTRA_CALL_NUMBER;
+import static io.wazo.callkeep.Constants.EXTRA_CALL_UUID;
+
+/**
+ * Full path of an event: VoiceConnection callback, CallEventBus, RNCallKeepModule listener and emission to JS.
+ */
+@State(Scope.Benchmark)
+public class EventDispatchBenchmark {
+    private static final CallAudioState SPEAKER = new CallAudioState(false, CallAudioState.ROUTE_SPEAKER, CallAudioState.ROUTE_ALL);
+    private static final CallAudioState EARPIECE = new CallAudioState(false, CallAudioState.ROUTE_EARPIECE, CallAudioState.ROUTE_ALL);
+
+    private BenchmarkReactContext reactContext;
+    private VoiceConnection connection;
+    private boolean speaker = false;
+
+    @Setup(Level.Trial)
+    public void setup() throws JSONException {
+        reactContext = new BenchmarkReactContext();
+        RNCallKeepModule module = RNCallKeepModule.getInstance(reactContext, true);
+        // Each route change is sent at once, the debounce timers are not run by the stub looper
+        module.setSettings(MapUtils.convertJsonToMap(new JSONObject("{\"audioRouteDebounce\":0}")));
+        module.registerEvents();
+
+        HashMap<String, String> handle = new HashMap<>();
+        handle.put(EXTRA_CALL_UUID, "5a7b7b5e-8f1e-4d67-9c77-3f4b3c0c1f2a");
+        handle.put(EXTRA_CALL_NUMBER, "+33612345678");
+        handle.put(EXTRA_CALLER_NAME, "John Doe");
+        connection = new VoiceConnection(reactContext, handle);
+    }
+
+    @Benchmark
+    public Object dtmfEvent() {
+        connection.onPlayDtmfTone('5');
+        return reactContext.lastEventData;
+    }
+
+    @Benchmark
+    public Object audioRouteEvent() {
+        speaker = !speaker;
+        connection.onCallAudioStateChanged(speaker ? SPEAKER : EARPIECE);
+        return reactContext.lastEventData;
+    }
+}
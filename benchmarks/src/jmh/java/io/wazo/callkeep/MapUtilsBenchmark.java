@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016-2019 The CallKeep Authors (see the AUTHORS file)
+ * SPDX-License-Identifier: ISC, MIT
+ *
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package io.wazo.callkeep;
+
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Conversions between React maps and JSON.
+ */
+@State(Scope.Thread)
+public class MapUtilsBenchmark {
+    // Settings passed to `setup` by a typical application
+    static final String SETTINGS = "{"
+        + "\"alertTitle\":\"Permissions required\","
+        + "\"alertDescription\":\"This application needs to access your phone accounts\","
+        + "\"cancelButton\":\"Cancel\","
+        + "\"okButton\":\"ok\","
+        + "\"imageName\":\"phone_account_icon\","
+        + "\"selfManaged\":false,"
+        + "\"displayCallReachabilityTimeout\":5000,"
+        + "\"foregroundService\":{"
+        + "\"channelId\":\"com.company.my\","
+        + "\"channelName\":\"Foreground service for my app\","
+        + "\"notificationTitle\":\"My app is running on background\","
+        + "\"notificationIcon\":\"Path to the resource icon of the notification\""
+        + "}"
+        + "}";
+
+    private JSONObject json;
+    private ReadableMap settings;
+
+    @Setup
+    public void setup() throws JSONException {
+        json = new JSONObject(SETTINGS);
+        settings = MapUtils.convertJsonToMap(json);
+    }
+
+    @Benchmark
+    public WritableMap convertJsonToMap() throws JSONException {
+        return MapUtils.convertJsonToMap(json);
+    }
+
+    @Benchmark
+    public JSONObject convertMapToJson() throws JSONException {
+        return MapUtils.convertMapToJson(settings);
+    }
+
+    @Benchmark
+    public WritableMap readableToWritableMap() {
+        return MapUtils.readableToWritableMap(settings);
+    }
+}
@@ -0,0 +1,10 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android;
+
+public class Manifest {
+    public static final class permission {
+        public static final String READ_PHONE_STATE="", READ_PHONE_NUMBERS="", CALL_PHONE="", RECORD_AUDIO="";
+    }
+}
@@ -0,0 +1,8 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.annotation;
+
+public @interface TargetApi {
+    int value();
+}
@@ -0,0 +1,9 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.app;
+
+public class Activity extends android.content.ContextWrapper {
+    public void startActivity(android.content.Intent i) {
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.app;
+
+public class Application extends android.content.ContextWrapper {
+    public Application() {
+        super(null);
+    }
+
+    public void registerActivityLifecycleCallbacks(ActivityLifecycleCallbacks callbacks) {
+    }
+
+    public interface ActivityLifecycleCallbacks {
+        void onActivityCreated(Activity activity, android.os.Bundle savedInstanceState);
+
+        void onActivityStarted(Activity activity);
+
+        void onActivityResumed(Activity activity);
+
+        void onActivityPaused(Activity activity);
+
+        void onActivityStopped(Activity activity);
+
+        void onActivitySaveInstanceState(Activity activity, android.os.Bundle outState);
+
+        void onActivityDestroyed(Activity activity);
+    }
+}
@@ -0,0 +1,10 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.app;
+
+public class Notification {
+    public static final int VISIBILITY_PRIVATE=0;
+
+    public static final String CATEGORY_SERVICE="", CATEGORY_CALL="";
+}
@@ -0,0 +1,12 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.app;
+
+public class NotificationChannel {
+    public NotificationChannel(String a, CharSequence b, int c) {
+    }
+
+    public void setLockscreenVisibility(int v) {
+    }
+}
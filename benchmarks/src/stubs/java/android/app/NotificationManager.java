@@ -0,0 +1,11 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.app;
+
+public class NotificationManager {
+    public static final int IMPORTANCE_NONE=0, IMPORTANCE_MIN=1;
+
+    public void createNotificationChannel(NotificationChannel c) {
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.app;
+
+public class Service extends android.content.ContextWrapper {
+    public void startForeground(int id, Notification n) {
+    }
+
+    public void stopForeground(int f) {
+    }
+
+    public void stopForeground(boolean b) {
+    }
+
+    public void onCreate() {
+    }
+
+    public void onDestroy() {
+    }
+
+    public final void stopSelf() {
+    }
+}
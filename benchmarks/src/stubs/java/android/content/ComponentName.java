@@ -0,0 +1,16 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.content;
+
+public class ComponentName {
+    public ComponentName(Context c, Class<?> k) {
+    }
+
+    public ComponentName(String a, String b) {
+    }
+
+    public String getPackageName() {
+        return null;
+    }
+}
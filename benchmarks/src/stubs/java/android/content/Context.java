@@ -0,0 +1,55 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.content;
+
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+
+import java.io.File;
+
+public abstract class Context {
+    public static final String TELECOM_SERVICE = "telecom";
+    public static final String TELEPHONY_SERVICE = "phone";
+    public static final String ACTIVITY_SERVICE = "activity";
+    public static final String NOTIFICATION_SERVICE = "notification";
+    public static final String AUDIO_SERVICE = "audio";
+    public static final int MODE_PRIVATE = 0;
+
+    public abstract Object getSystemService(String name);
+
+    public abstract String getPackageName();
+
+    public abstract Context getApplicationContext();
+
+    public abstract Resources getResources();
+
+    public abstract SharedPreferences getSharedPreferences(String name, int mode);
+
+    public abstract ApplicationInfo getApplicationInfo();
+
+    public abstract PackageManager getPackageManager();
+
+    public abstract File getFilesDir();
+
+    public abstract File getNoBackupFilesDir();
+
+    public abstract File getCacheDir();
+
+    public abstract ComponentName startService(Intent service);
+
+    public abstract boolean stopService(Intent service);
+
+    public abstract void startActivity(Intent intent);
+
+    public abstract void sendBroadcast(Intent intent);
+
+    public abstract Intent registerReceiver(BroadcastReceiver receiver, IntentFilter filter);
+
+    public abstract Intent registerReceiver(BroadcastReceiver receiver, IntentFilter filter, int flags);
+
+    public final String getString(int resId) {
+        return null;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.content;
+
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+
+import java.io.File;
+
+public class ContextWrapper extends Context {
+    private Context base;
+
+    public ContextWrapper() {
+    }
+
+    public ContextWrapper(Context base) {
+        this.base = base;
+    }
+
+    public Context getBaseContext() {
+        return base;
+    }
+
+    @Override
+    public Object getSystemService(String name) {
+        return base != null ? base.getSystemService(name) : null;
+    }
+
+    @Override
+    public String getPackageName() {
+        return base != null ? base.getPackageName() : null;
+    }
+
+    @Override
+    public Context getApplicationContext() {
+        return base != null ? base.getApplicationContext() : null;
+    }
+
+    @Override
+    public Resources getResources() {
+        return base != null ? base.getResources() : null;
+    }
+
+    @Override
+    public SharedPreferences getSharedPreferences(String name, int mode) {
+        return base != null ? base.getSharedPreferences(name, mode) : null;
+    }
+
+    @Override
+    public ApplicationInfo getApplicationInfo() {
+        return base != null ? base.getApplicationInfo() : null;
+    }
+
+    @Override
+    public PackageManager getPackageManager() {
+        return base != null ? base.getPackageManager() : null;
+    }
+
+    @Override
+    public File getFilesDir() {
+        return base != null ? base.getFilesDir() : null;
+    }
+
+    @Override
+    public File getNoBackupFilesDir() {
+        return base != null ? base.getNoBackupFilesDir() : null;
+    }
+
+    @Override
+    public File getCacheDir() {
+        return base != null ? base.getCacheDir() : null;
+    }
+
+    @Override
+    public ComponentName startService(Intent service) {
+        return base != null ? base.startService(service) : null;
+    }
+
+    @Override
+    public boolean stopService(Intent service) {
+        return base != null && base.stopService(service);
+    }
+
+    @Override
+    public void startActivity(Intent intent) {
+        if (base != null) {
+            base.startActivity(intent);
+        }
+    }
+
+    @Override
+    public void sendBroadcast(Intent intent) {
+        if (base != null) {
+            base.sendBroadcast(intent);
+        }
+    }
+
+    @Override
+    public Intent registerReceiver(BroadcastReceiver receiver, IntentFilter filter) {
+        return base != null ? base.registerReceiver(receiver, filter) : null;
+    }
+
+    @Override
+    public Intent registerReceiver(BroadcastReceiver receiver, IntentFilter filter, int flags) {
+        return base != null ? base.registerReceiver(receiver, filter, flags) : null;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.content;
+
+public class Intent {
+    public static final int FLAG_ACTIVITY_NEW_TASK=1, FLAG_ACTIVITY_MULTIPLE_TASK=2, FLAG_ACTIVITY_REORDER_TO_FRONT=4;
+
+    public Intent() {
+    }
+
+    public Intent(String a) {
+    }
+
+    public Intent(Context c, Class<?> k) {
+    }
+
+    public Intent putExtra(String k, String v) {
+        return this;
+    }
+
+    public Intent putExtra(String k, boolean v) {
+        return this;
+    }
+
+    public Intent putExtra(String k, int v) {
+        return this;
+    }
+
+    public Intent putExtra(String k, long v) {
+        return this;
+    }
+
+    public Intent putExtra(String k, String[] v) {
+        return this;
+    }
+
+    public Intent putStringArrayListExtra(String k, java.util.ArrayList<String> v) {
+        return this;
+    }
+
+    public Intent putExtras(android.os.Bundle b) {
+        return this;
+    }
+
+    public android.os.Bundle getExtras() {
+        return null;
+    }
+
+    public String getAction() {
+        return null;
+    }
+
+    public java.io.Serializable getSerializableExtra(String k) {
+        return null;
+    }
+
+    public String getStringExtra(String k) {
+        return null;
+    }
+
+    public Intent setFlags(int f) {
+        return this;
+    }
+
+    public Intent addFlags(int f) {
+        return this;
+    }
+
+    public Intent setComponent(ComponentName c) {
+        return this;
+    }
+
+    public Intent cloneFilter() {
+        return this;
+    }
+
+    public java.util.ArrayList<String> getStringArrayListExtra(String k) {
+        return null;
+    }
+}
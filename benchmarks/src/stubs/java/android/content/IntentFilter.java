@@ -0,0 +1,9 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.content;
+
+public class IntentFilter {
+    public final void addAction(String action) {
+    }
+}
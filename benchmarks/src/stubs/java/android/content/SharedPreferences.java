@@ -0,0 +1,28 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.content;
+
+public interface SharedPreferences {
+    String getString(String k, String d);
+
+    long getLong(String k, long d);
+
+    int getInt(String k, int d);
+
+    Editor edit();
+
+    interface Editor {
+        Editor putString(String k, String v);
+
+        Editor putLong(String k, long v);
+
+        Editor putInt(String k, int v);
+
+        void apply();
+
+        boolean commit();
+
+        Editor remove(String k);
+    }
+}
@@ -0,0 +1,10 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.content.pm;
+
+public class ApplicationInfo {
+    public int labelRes;
+
+    public CharSequence nonLocalizedLabel;
+}
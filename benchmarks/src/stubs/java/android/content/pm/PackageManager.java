@@ -0,0 +1,12 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.content.pm;
+
+public abstract class PackageManager {
+    public static final int PERMISSION_GRANTED=0, PERMISSION_DENIED=-1;
+
+    public android.content.Intent getLaunchIntentForPackage(String p) {
+        return null;
+    }
+}
@@ -0,0 +1,10 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.content.res;
+
+public class Resources {
+    public int getIdentifier(String n, String t, String p) {
+        return 0;
+    }
+}
@@ -0,0 +1,10 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.graphics.drawable;
+
+public class Icon {
+    public static Icon createWithResource(android.content.Context c, int id) {
+        return null;
+    }
+}
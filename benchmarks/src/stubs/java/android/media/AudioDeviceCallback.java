@@ -0,0 +1,12 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.media;
+
+public abstract class AudioDeviceCallback {
+    public void onAudioDevicesAdded(AudioDeviceInfo[] addedDevices) {
+    }
+
+    public void onAudioDevicesRemoved(AudioDeviceInfo[] removedDevices) {
+    }
+}
@@ -0,0 +1,16 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.media;
+
+public class AudioDeviceInfo {
+    public static final int TYPE_BLUETOOTH_A2DP=8, TYPE_BLUETOOTH_SCO=7, TYPE_WIRED_HEADPHONES=4, TYPE_WIRED_HEADSET=3, TYPE_BUILTIN_MIC=15, TYPE_BUILTIN_SPEAKER=2, TYPE_BUILTIN_EARPIECE=1;
+
+    public int getType() {
+        return 0;
+    }
+
+    public int getId() {
+        return 0;
+    }
+}
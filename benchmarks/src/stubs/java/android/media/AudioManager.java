@@ -0,0 +1,30 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.media;
+
+public class AudioManager {
+    public static final int GET_DEVICES_INPUTS=1, GET_DEVICES_OUTPUTS=2, GET_DEVICES_ALL=3;
+
+    public AudioDeviceInfo[] getDevices(int f) {
+        return null;
+    }
+
+    public boolean isBluetoothScoOn() {
+        return false;
+    }
+
+    public boolean isSpeakerphoneOn() {
+        return false;
+    }
+
+    public boolean isWiredHeadsetOn() {
+        return false;
+    }
+
+    public void registerAudioDeviceCallback(AudioDeviceCallback callback, android.os.Handler handler) {
+    }
+
+    public void unregisterAudioDeviceCallback(AudioDeviceCallback callback) {
+    }
+}
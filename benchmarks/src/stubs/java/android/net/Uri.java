@@ -0,0 +1,36 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.net;
+
+public class Uri {
+    private final String scheme;
+    private final String schemeSpecificPart;
+
+    private Uri(String scheme, String schemeSpecificPart) {
+        this.scheme = scheme;
+        this.schemeSpecificPart = schemeSpecificPart;
+    }
+
+    public static Uri parse(String uriString) {
+        int index = uriString.indexOf(':');
+        return index < 0 ? new Uri(null, uriString) : new Uri(uriString.substring(0, index), uriString.substring(index + 1));
+    }
+
+    public static Uri fromParts(String scheme, String ssp, String fragment) {
+        return new Uri(scheme, ssp);
+    }
+
+    public String getScheme() {
+        return scheme;
+    }
+
+    public String getSchemeSpecificPart() {
+        return schemeSpecificPart;
+    }
+
+    @Override
+    public String toString() {
+        return scheme == null ? schemeSpecificPart : scheme + ":" + schemeSpecificPart;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.os;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Set;
+
+// Backed by a HashMap, like the unparcelled Android Bundle
+public class Bundle {
+    private final HashMap<String, Object> values = new HashMap<>();
+
+    public Bundle() {
+    }
+
+    public Bundle(Bundle bundle) {
+        values.putAll(bundle.values);
+    }
+
+    public Set<String> keySet() {
+        return values.keySet();
+    }
+
+    public Object get(String key) {
+        return values.get(key);
+    }
+
+    public boolean containsKey(String key) {
+        return values.containsKey(key);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    public void putAll(Bundle bundle) {
+        values.putAll(bundle.values);
+    }
+
+    public void putString(String key, String value) {
+        values.put(key, value);
+    }
+
+    public String getString(String key) {
+        Object value = values.get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    public void putBoolean(String key, boolean value) {
+        values.put(key, value);
+    }
+
+    public boolean getBoolean(String key) {
+        Object value = values.get(key);
+        return value instanceof Boolean && (Boolean) value;
+    }
+
+    public void putInt(String key, int value) {
+        values.put(key, value);
+    }
+
+    public int getInt(String key) {
+        return getInt(key, 0);
+    }
+
+    public int getInt(String key, int defaultValue) {
+        Object value = values.get(key);
+        return value instanceof Integer ? (Integer) value : defaultValue;
+    }
+
+    public void putLong(String key, long value) {
+        values.put(key, value);
+    }
+
+    public long getLong(String key) {
+        Object value = values.get(key);
+        return value instanceof Long ? (Long) value : 0;
+    }
+
+    public void putDouble(String key, double value) {
+        values.put(key, value);
+    }
+
+    public double getDouble(String key) {
+        Object value = values.get(key);
+        return value instanceof Double ? (Double) value : 0;
+    }
+
+    public void putParcelable(String key, Object value) {
+        values.put(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getParcelable(String key) {
+        return (T) values.get(key);
+    }
+
+    public void putSerializable(String key, Serializable value) {
+        values.put(key, value);
+    }
+
+    public Serializable getSerializable(String key) {
+        Object value = values.get(key);
+        return value instanceof Serializable ? (Serializable) value : null;
+    }
+
+    public void putStringArrayList(String key, ArrayList<String> value) {
+        values.put(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ArrayList<String> getStringArrayList(String key) {
+        return (ArrayList<String>) values.get(key);
+    }
+
+    public void putBundle(String key, Bundle value) {
+        values.put(key, value);
+    }
+
+    public Bundle getBundle(String key) {
+        Object value = values.get(key);
+        return value instanceof Bundle ? (Bundle) value : null;
+    }
+
+    @Override
+    public String toString() {
+        return "Bundle" + values;
+    }
+}
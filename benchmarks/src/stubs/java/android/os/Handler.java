@@ -0,0 +1,51 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.os;
+
+// Runs posted runnables immediately on the calling thread, delayed runnables are dropped
+public class Handler {
+    private final Looper looper;
+
+    public Handler() {
+        this(Looper.myLooper());
+    }
+
+    public Handler(Looper looper) {
+        this.looper = looper;
+    }
+
+    public final boolean post(Runnable runnable) {
+        runnable.run();
+        return true;
+    }
+
+    public final boolean postDelayed(Runnable runnable, long delayMillis) {
+        return true;
+    }
+
+    public final boolean postDelayed(Runnable runnable, Object token, long delayMillis) {
+        return true;
+    }
+
+    public final boolean postAtTime(Runnable runnable, long uptimeMillis) {
+        return true;
+    }
+
+    public final boolean postAtTime(Runnable runnable, Object token, long uptimeMillis) {
+        return true;
+    }
+
+    public final void removeCallbacks(Runnable runnable) {
+    }
+
+    public final void removeCallbacks(Runnable runnable, Object token) {
+    }
+
+    public final void removeCallbacksAndMessages(Object token) {
+    }
+
+    public final Looper getLooper() {
+        return looper;
+    }
+}
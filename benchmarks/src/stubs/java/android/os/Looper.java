@@ -0,0 +1,33 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.os;
+
+public final class Looper {
+    private static final Looper mainLooper = new Looper(Thread.currentThread());
+
+    private final Thread thread;
+
+    private Looper(Thread thread) {
+        this.thread = thread;
+    }
+
+    public static Looper getMainLooper() {
+        return mainLooper;
+    }
+
+    public static Looper myLooper() {
+        return mainLooper;
+    }
+
+    public static void prepare() {
+    }
+
+    public Thread getThread() {
+        return thread;
+    }
+
+    public boolean quitSafely() {
+        return true;
+    }
+}
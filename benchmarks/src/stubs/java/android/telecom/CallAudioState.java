@@ -0,0 +1,50 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.telecom;
+
+public final class CallAudioState {
+    public static final int ROUTE_EARPIECE = 1;
+    public static final int ROUTE_BLUETOOTH = 2;
+    public static final int ROUTE_WIRED_HEADSET = 4;
+    public static final int ROUTE_SPEAKER = 8;
+    public static final int ROUTE_WIRED_OR_EARPIECE = ROUTE_EARPIECE | ROUTE_WIRED_HEADSET;
+    public static final int ROUTE_ALL = ROUTE_EARPIECE | ROUTE_BLUETOOTH | ROUTE_WIRED_HEADSET | ROUTE_SPEAKER;
+
+    private final boolean muted;
+    private final int route;
+    private final int supportedRouteMask;
+
+    public CallAudioState(boolean muted, int route, int supportedRouteMask) {
+        this.muted = muted;
+        this.route = route;
+        this.supportedRouteMask = supportedRouteMask;
+    }
+
+    public boolean isMuted() {
+        return muted;
+    }
+
+    public int getRoute() {
+        return route;
+    }
+
+    public int getSupportedRouteMask() {
+        return supportedRouteMask;
+    }
+
+    public static String audioRouteToString(int route) {
+        switch (route) {
+            case ROUTE_EARPIECE:
+                return "EARPIECE";
+            case ROUTE_BLUETOOTH:
+                return "BLUETOOTH";
+            case ROUTE_WIRED_HEADSET:
+                return "WIRED_HEADSET";
+            case ROUTE_SPEAKER:
+                return "SPEAKER";
+            default:
+                return "UNKNOWN";
+        }
+    }
+}
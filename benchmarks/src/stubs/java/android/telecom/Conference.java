@@ -0,0 +1,34 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.telecom;
+
+public abstract class Conference extends Conferenceable {
+    public Conference(PhoneAccountHandle h) {
+    }
+
+    public void setActive() {
+    }
+
+    public void onMerge() {
+    }
+
+    public void onSeparate(Connection c) {
+    }
+
+    public void onDisconnect() {
+    }
+
+    public void onConnectionAdded(Connection c) {
+    }
+
+    public void onHold() {
+    }
+
+    public void onUnhold() {
+    }
+
+    public final boolean addConnection(Connection c) {
+        return true;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.telecom;
+
+import android.net.Uri;
+import android.os.Bundle;
+
+import java.util.Collections;
+import java.util.List;
+
+// Keeps the state, capabilities and extras, and reports state changes like the framework does
+public abstract class Connection extends Conferenceable {
+    public static final int STATE_INITIALIZING = 0;
+    public static final int STATE_NEW = 1;
+    public static final int STATE_RINGING = 2;
+    public static final int STATE_DIALING = 3;
+    public static final int STATE_ACTIVE = 4;
+    public static final int STATE_HOLDING = 5;
+    public static final int STATE_DISCONNECTED = 6;
+    public static final int STATE_PULLING_CALL = 7;
+
+    public static final int CAPABILITY_HOLD = 1;
+    public static final int CAPABILITY_SUPPORT_HOLD = 2;
+    public static final int CAPABILITY_MUTE = 64;
+    public static final int PROPERTY_SELF_MANAGED = 128;
+
+    private int state = STATE_NEW;
+    private int capabilities;
+    private int properties;
+    private Bundle extras;
+    private Uri address;
+    private String callerDisplayName;
+    private CallAudioState callAudioState;
+    private List<Connection> conferenceableConnections = Collections.emptyList();
+
+    public static String stateToString(int state) {
+        return String.valueOf(state);
+    }
+
+    public static Connection createFailedConnection(DisconnectCause cause) {
+        Connection connection = new Connection() {
+        };
+        connection.setDisconnected(cause);
+        return connection;
+    }
+
+    private void setState(int state) {
+        if (this.state == state) {
+            return;
+        }
+        this.state = state;
+        onStateChanged(state);
+    }
+
+    public final int getState() {
+        return state;
+    }
+
+    public final void setActive() {
+        setState(STATE_ACTIVE);
+    }
+
+    public final void setDialing() {
+        setState(STATE_DIALING);
+    }
+
+    public final void setOnHold() {
+        setState(STATE_HOLDING);
+    }
+
+    public final void setInitializing() {
+        setState(STATE_INITIALIZING);
+    }
+
+    public final void setInitialized() {
+        setState(STATE_NEW);
+    }
+
+    public final void setRinging() {
+        setState(STATE_RINGING);
+    }
+
+    public final void setDisconnected(DisconnectCause cause) {
+        setState(STATE_DISCONNECTED);
+    }
+
+    public final void destroy() {
+    }
+
+    public final void setAddress(Uri address, int presentation) {
+        this.address = address;
+    }
+
+    public final Uri getAddress() {
+        return address;
+    }
+
+    public final void setCallerDisplayName(String callerDisplayName, int presentation) {
+        this.callerDisplayName = callerDisplayName;
+    }
+
+    public final String getCallerDisplayName() {
+        return callerDisplayName;
+    }
+
+    public final void setAudioModeIsVoip(boolean isVoip) {
+    }
+
+    public final void setConnectionCapabilities(int capabilities) {
+        this.capabilities = capabilities;
+    }
+
+    public final int getConnectionCapabilities() {
+        return capabilities;
+    }
+
+    public final void setConnectionProperties(int properties) {
+        this.properties = properties;
+    }
+
+    public final void setExtras(Bundle extras) {
+        this.extras = extras;
+    }
+
+    public final Bundle getExtras() {
+        return extras;
+    }
+
+    public final CallAudioState getCallAudioState() {
+        return callAudioState;
+    }
+
+    public final void setAudioRoute(int route) {
+        callAudioState = new CallAudioState(callAudioState != null && callAudioState.isMuted(), route, CallAudioState.ROUTE_ALL);
+        onCallAudioStateChanged(callAudioState);
+    }
+
+    public final void setConferenceableConnections(List<Connection> conferenceableConnections) {
+        this.conferenceableConnections = conferenceableConnections;
+    }
+
+    public final List<Connection> getConferenceableConnections() {
+        return conferenceableConnections;
+    }
+
+    public void onExtrasChanged(Bundle extras) {
+    }
+
+    public void onCallAudioStateChanged(CallAudioState state) {
+    }
+
+    public void onAnswer(int videoState) {
+    }
+
+    public void onAnswer() {
+    }
+
+    public void onPlayDtmfTone(char c) {
+    }
+
+    public void onStopDtmfTone() {
+    }
+
+    public void onDisconnect() {
+    }
+
+    public void onAbort() {
+    }
+
+    public void onHold() {
+    }
+
+    public void onUnhold() {
+    }
+
+    public void onReject() {
+    }
+
+    public void onReject(String replyMessage) {
+    }
+
+    public void onReject(int rejectReason) {
+    }
+
+    public void onCallEvent(String event, Bundle extras) {
+    }
+
+    public void onDeflect(Uri address) {
+    }
+
+    public void onHandoverComplete() {
+    }
+
+    public void onPostDialContinue(boolean proceed) {
+    }
+
+    public void onPullExternalCall() {
+    }
+
+    public void onSeparate() {
+    }
+
+    public void onStateChanged(int state) {
+    }
+
+    public void onSilence() {
+    }
+
+    public void onStopRtt() {
+    }
+
+    public void onShowIncomingCallUi() {
+    }
+}
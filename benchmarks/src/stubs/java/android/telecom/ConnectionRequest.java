@@ -0,0 +1,21 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.telecom;
+
+public class ConnectionRequest {
+    public ConnectionRequest(PhoneAccountHandle h, android.net.Uri u, android.os.Bundle b) {
+    }
+
+    public android.os.Bundle getExtras() {
+        return null;
+    }
+
+    public android.net.Uri getAddress() {
+        return null;
+    }
+
+    public PhoneAccountHandle getAccountHandle() {
+        return null;
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.telecom;
+
+public abstract class ConnectionService extends android.app.Service {
+    public Connection onCreateIncomingConnection(PhoneAccountHandle a, ConnectionRequest r) {
+        return null;
+    }
+
+    public Connection onCreateOutgoingConnection(PhoneAccountHandle a, ConnectionRequest r) {
+        return null;
+    }
+
+    public void onCreateIncomingConnectionFailed(PhoneAccountHandle a, ConnectionRequest r) {
+    }
+
+    public void onCreateOutgoingConnectionFailed(PhoneAccountHandle a, ConnectionRequest r) {
+    }
+
+    public void onConference(Connection a, Connection b) {
+    }
+
+    public final void addConference(Conference c) {
+    }
+
+    public final java.util.Collection<Connection> getAllConnections() {
+        return null;
+    }
+}
@@ -0,0 +1,11 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.telecom;
+
+public class DisconnectCause {
+    public static final int UNKNOWN=0, ERROR=1, LOCAL=2, REMOTE=3, CANCELED=4, MISSED=5, REJECTED=6, BUSY=7, RESTRICTED=8, OTHER=9, CONNECTION_MANAGER_NOT_SUPPORTED=10, ANSWERED_ELSEWHERE=11;
+
+    public DisconnectCause(int c) {
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.telecom;
+
+public class PhoneAccount {
+    public static final int CAPABILITY_SELF_MANAGED=2048, CAPABILITY_CALL_PROVIDER=2;
+
+    public static final String SCHEME_TEL="tel";
+
+    public int getCapabilities() {
+        return 0;
+    }
+
+    public boolean isEnabled() {
+        return false;
+    }
+
+    public static class Builder {
+        public Builder(PhoneAccountHandle h, CharSequence l) {
+        }
+
+        public Builder setCapabilities(int c) {
+            return this;
+        }
+
+        public Builder setIcon(android.graphics.drawable.Icon i) {
+            return this;
+        }
+
+        public PhoneAccount build() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.telecom;
+
+public class PhoneAccountHandle {
+    public PhoneAccountHandle(android.content.ComponentName c, String id) {
+    }
+
+    public String getId() {
+        return null;
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.telecom;
+
+public class TelecomManager {
+    public static final int PRESENTATION_ALLOWED=1;
+
+    public static final String EXTRA_INCOMING_CALL_ADDRESS="", EXTRA_PHONE_ACCOUNT_HANDLE="", EXTRA_OUTGOING_CALL_EXTRAS="", ACTION_CHANGE_PHONE_ACCOUNTS="", ACTION_PHONE_ACCOUNT_REGISTERED="", ACTION_PHONE_ACCOUNT_UNREGISTERED="", EXTRA_INCOMING_CALL_EXTRAS="";
+
+    public void addNewIncomingCall(PhoneAccountHandle h, android.os.Bundle b) {
+    }
+
+    public void placeCall(android.net.Uri u, android.os.Bundle b) {
+    }
+
+    public PhoneAccount getPhoneAccount(PhoneAccountHandle h) {
+        return null;
+    }
+
+    public void registerPhoneAccount(PhoneAccount a) {
+    }
+
+    public PhoneAccountHandle getDefaultOutgoingPhoneAccount(String s) {
+        return null;
+    }
+}
@@ -0,0 +1,12 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.telephony;
+
+public class TelephonyManager {
+    public static final int SIM_STATE_ABSENT=1;
+
+    public int getSimState() {
+        return 0;
+    }
+}
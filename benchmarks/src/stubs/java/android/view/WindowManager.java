@@ -0,0 +1,10 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package android.view;
+
+public class WindowManager {
+    public static class LayoutParams {
+        public static final int FLAG_SHOW_WHEN_LOCKED=1, FLAG_DISMISS_KEYGUARD=2, FLAG_TURN_SCREEN_ON=4;
+    }
+}
@@ -0,0 +1,9 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package androidx.core.app;
+
+public class ActivityCompat {
+    public static void requestPermissions(android.app.Activity a, String[] p, int c) {
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package androidx.core.app;
+
+public class NotificationCompat {
+    public static class Builder {
+        public Builder(android.content.Context c, String id) {
+        }
+
+        public Builder setOngoing(boolean b) {
+            return this;
+        }
+
+        public Builder setContentTitle(CharSequence t) {
+            return this;
+        }
+
+        public Builder setPriority(int p) {
+            return this;
+        }
+
+        public Builder setCategory(String c) {
+            return this;
+        }
+
+        public Builder setSmallIcon(int i) {
+            return this;
+        }
+
+        public android.app.Notification build() {
+            return null;
+        }
+    }
+}
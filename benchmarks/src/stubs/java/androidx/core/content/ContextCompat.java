@@ -0,0 +1,10 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package androidx.core.content;
+
+public class ContextCompat {
+    public static int checkSelfPermission(android.content.Context c, String p) {
+        return 0;
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react;
+
+public abstract class HeadlessJsTaskService extends android.app.Service {
+    public static void acquireWakeLockNow(android.content.Context c) {
+    }
+
+    protected com.facebook.react.jstasks.HeadlessJsTaskConfig getTaskConfig(android.content.Intent i) {
+        return null;
+    }
+
+    public void onHeadlessJsTaskStart(int id) {
+    }
+
+    public void onHeadlessJsTaskFinish(int id) {
+    }
+
+    public int onStartCommand(android.content.Intent i, int f, int s) {
+        return 0;
+    }
+}
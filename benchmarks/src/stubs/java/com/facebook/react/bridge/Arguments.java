@@ -0,0 +1,80 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.bridge;
+
+import android.os.Bundle;
+
+import java.util.Map;
+
+public class Arguments {
+    public static WritableMap createMap() {
+        return new WritableNativeMap();
+    }
+
+    public static WritableArray createArray() {
+        return new WritableNativeArray();
+    }
+
+    public static WritableMap makeNativeMap(Map<String, Object> objects) {
+        WritableNativeMap map = new WritableNativeMap();
+        for (Map.Entry<String, Object> entry : objects.entrySet()) {
+            put(map, entry.getKey(), entry.getValue());
+        }
+        return map;
+    }
+
+    public static WritableMap fromBundle(Bundle bundle) {
+        WritableNativeMap map = new WritableNativeMap();
+        for (String key : bundle.keySet()) {
+            put(map, key, bundle.get(key));
+        }
+        return map;
+    }
+
+    public static Bundle toBundle(ReadableMap readableMap) {
+        Bundle bundle = new Bundle();
+        if (readableMap == null) {
+            return bundle;
+        }
+
+        ReadableMapKeySetIterator iterator = readableMap.keySetIterator();
+        while (iterator.hasNextKey()) {
+            String key = iterator.nextKey();
+            switch (readableMap.getType(key)) {
+                case Null:
+                    bundle.putString(key, null);
+                    break;
+                case Boolean:
+                    bundle.putBoolean(key, readableMap.getBoolean(key));
+                    break;
+                case Number:
+                    bundle.putDouble(key, readableMap.getDouble(key));
+                    break;
+                case String:
+                    bundle.putString(key, readableMap.getString(key));
+                    break;
+                case Map:
+                    bundle.putBundle(key, toBundle(readableMap.getMap(key)));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return bundle;
+    }
+
+    private static void put(WritableMap map, String key, Object value) {
+        if (value == null) {
+            map.putNull(key);
+        } else if (value instanceof Boolean) {
+            map.putBoolean(key, (Boolean) value);
+        } else if (value instanceof Number) {
+            map.putDouble(key, ((Number) value).doubleValue());
+        } else if (value instanceof Bundle) {
+            map.putMap(key, fromBundle((Bundle) value));
+        } else {
+            map.putString(key, value.toString());
+        }
+    }
+}
@@ -0,0 +1,7 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.bridge;
+
+public abstract class BaseJavaModule implements NativeModule {
+}
@@ -0,0 +1,12 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.bridge;
+
+public interface LifecycleEventListener {
+    void onHostResume();
+
+    void onHostPause();
+
+    void onHostDestroy();
+}
@@ -0,0 +1,28 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.bridge;
+
+public interface Promise {
+    void resolve(Object v);
+
+    void reject(String c, String m);
+
+    void reject(String c, Throwable t);
+
+    void reject(String c, String m, Throwable t);
+
+    void reject(Throwable t);
+
+    void reject(Throwable t, WritableMap u);
+
+    void reject(String c, WritableMap u);
+
+    void reject(String c, Throwable t, WritableMap u);
+
+    void reject(String c, String m, WritableMap u);
+
+    void reject(String c, String m, Throwable t, WritableMap u);
+
+    void reject(String m);
+}
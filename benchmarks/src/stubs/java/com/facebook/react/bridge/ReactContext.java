@@ -0,0 +1,42 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.bridge;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+
+// Override hasActiveCatalystInstance and getJSModule to receive the events sent to JS
+public class ReactContext extends ContextWrapper {
+    public ReactContext(Context base) {
+        super(base);
+    }
+
+    public boolean hasActiveCatalystInstance() {
+        return false;
+    }
+
+    public boolean hasActiveReactInstance() {
+        return hasActiveCatalystInstance();
+    }
+
+    public <T extends JavaScriptModule> T getJSModule(Class<T> jsInterface) {
+        return null;
+    }
+
+    public <T extends NativeModule> T getNativeModule(Class<T> nativeModuleInterface) {
+        return null;
+    }
+
+    public Activity getCurrentActivity() {
+        return null;
+    }
+
+    public com.facebook.react.common.LifecycleState getLifecycleState() {
+        return com.facebook.react.common.LifecycleState.BEFORE_CREATE;
+    }
+
+    public void addLifecycleEventListener(LifecycleEventListener listener) {
+    }
+}
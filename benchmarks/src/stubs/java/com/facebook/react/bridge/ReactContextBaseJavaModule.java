@@ -0,0 +1,20 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.bridge;
+
+public abstract class ReactContextBaseJavaModule extends BaseJavaModule {
+    private final ReactApplicationContext reactApplicationContext;
+
+    public ReactContextBaseJavaModule(ReactApplicationContext reactContext) {
+        this.reactApplicationContext = reactContext;
+    }
+
+    protected final ReactApplicationContext getReactApplicationContext() {
+        return reactApplicationContext;
+    }
+
+    protected final android.app.Activity getCurrentActivity() {
+        return reactApplicationContext.getCurrentActivity();
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.bridge;
+
+public interface ReadableMap {
+    boolean hasKey(String k);
+
+    boolean isNull(String k);
+
+    boolean getBoolean(String k);
+
+    double getDouble(String k);
+
+    int getInt(String k);
+
+    String getString(String k);
+
+    ReadableArray getArray(String k);
+
+    ReadableMap getMap(String k);
+
+    ReadableType getType(String k);
+
+    ReadableMapKeySetIterator keySetIterator();
+
+    java.util.HashMap<String, Object> toHashMap();
+}
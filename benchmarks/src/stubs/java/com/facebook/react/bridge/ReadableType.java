@@ -0,0 +1,28 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.bridge;
+
+public enum ReadableType {
+    Null,
+    Boolean,
+    Number,
+    String,
+    Map,
+    Array;
+
+    static ReadableType of(Object value) {
+        if (value == null) {
+            return Null;
+        } else if (value instanceof java.lang.Boolean) {
+            return Boolean;
+        } else if (value instanceof java.lang.Number) {
+            return Number;
+        } else if (value instanceof java.lang.String) {
+            return String;
+        } else if (value instanceof ReadableMap) {
+            return Map;
+        }
+        return Array;
+    }
+}
@@ -0,0 +1,20 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.bridge;
+
+public interface WritableArray extends ReadableArray {
+    void pushNull();
+
+    void pushBoolean(boolean v);
+
+    void pushDouble(double v);
+
+    void pushInt(int v);
+
+    void pushString(String v);
+
+    void pushArray(ReadableArray a);
+
+    void pushMap(ReadableMap m);
+}
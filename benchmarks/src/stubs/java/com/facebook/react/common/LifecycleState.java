@@ -0,0 +1,10 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.common;
+
+public enum LifecycleState {
+    BEFORE_CREATE,
+    BEFORE_RESUME,
+    RESUMED
+}
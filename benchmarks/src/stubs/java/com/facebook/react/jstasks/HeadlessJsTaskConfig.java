@@ -0,0 +1,12 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.jstasks;
+
+public class HeadlessJsTaskConfig {
+    public HeadlessJsTaskConfig(String n, com.facebook.react.bridge.WritableMap d, long t, boolean f, HeadlessJsTaskRetryPolicy p) {
+    }
+
+    public HeadlessJsTaskConfig(String n, com.facebook.react.bridge.WritableMap d, long t, boolean f) {
+    }
+}
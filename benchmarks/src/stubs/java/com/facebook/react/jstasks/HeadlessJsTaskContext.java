@@ -0,0 +1,19 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.jstasks;
+
+import com.facebook.react.bridge.ReactContext;
+
+public class HeadlessJsTaskContext {
+    public static HeadlessJsTaskContext getInstance(ReactContext context) {
+        return new HeadlessJsTaskContext();
+    }
+
+    public synchronized boolean isTaskRunning(int taskId) {
+        return false;
+    }
+
+    public synchronized void finishTask(int taskId) {
+    }
+}
@@ -0,0 +1,14 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.jstasks;
+
+public interface HeadlessJsTaskRetryPolicy {
+    boolean canRetry();
+
+    int getDelay();
+
+    HeadlessJsTaskRetryPolicy update();
+
+    HeadlessJsTaskRetryPolicy copy();
+}
@@ -0,0 +1,25 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.jstasks;
+
+public class LinearCountingRetryPolicy implements HeadlessJsTaskRetryPolicy {
+    public LinearCountingRetryPolicy(int a, int b) {
+    }
+
+    public boolean canRetry() {
+        return true;
+    }
+
+    public int getDelay() {
+        return 0;
+    }
+
+    public HeadlessJsTaskRetryPolicy update() {
+        return this;
+    }
+
+    public HeadlessJsTaskRetryPolicy copy() {
+        return this;
+    }
+}
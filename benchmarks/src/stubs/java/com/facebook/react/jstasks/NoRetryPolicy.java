@@ -0,0 +1,24 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.jstasks;
+
+public class NoRetryPolicy implements HeadlessJsTaskRetryPolicy {
+    public static final NoRetryPolicy INSTANCE = new NoRetryPolicy();
+
+    public boolean canRetry() {
+        return false;
+    }
+
+    public int getDelay() {
+        return 0;
+    }
+
+    public HeadlessJsTaskRetryPolicy update() {
+        return this;
+    }
+
+    public HeadlessJsTaskRetryPolicy copy() {
+        return this;
+    }
+}
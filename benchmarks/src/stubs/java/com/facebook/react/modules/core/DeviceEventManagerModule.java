@@ -0,0 +1,10 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.modules.core;
+
+public class DeviceEventManagerModule {
+    public interface RCTDeviceEventEmitter extends com.facebook.react.bridge.JavaScriptModule {
+        void emit(String n, Object d);
+    }
+}
@@ -0,0 +1,13 @@
+/*
+ * Stub of the Android / React Native API, used to run the benchmarks on a plain JVM.
+ */
+package com.facebook.react.modules.permissions;
+
+public class PermissionsModule implements com.facebook.react.bridge.NativeModule {
+    public String getName() {
+        return null;
+    }
+
+    public void requestMultiplePermissions(com.facebook.react.bridge.ReadableArray p, com.facebook.react.bridge.Promise pr) {
+    }
+}
@@ -15,7 +15,10 @@ declare module 'react-native-callkeep' {
     'didLoadWithEvents' |
     'showIncomingCallUi' |
     'silenceIncomingCall' |
-    'createIncomingConnectionFailed';
+    'createIncomingConnectionFailed' |
+    'didRecordCallMetric' |
+    'didChangeActiveCalls' |
+    'didChangeAvailableAudioRoutes';
 
   type HandleType = 'generic' | 'number' | 'email';
 
@@ -43,6 +46,25 @@ declare module 'react-native-callkeep' {
       imageName?: string,
       additionalPermissions: string[],
       selfManaged?: boolean,
+      eventBatchingWindow?: number,
+      audioRouteDebounce?: number,
+      logLevel?: 'verbose' | 'debug' | 'info' | 'warn' | 'error' | 'none',
+      flightRecorder?: boolean,
+      delayedEventsCapacity?: number,
+      delayedEventsTtl?: number,
+      callMetricsEvents?: boolean,
+      adaptiveReachabilityTimeout?: {
+        percentile?: number,
+        min?: number,
+        max?: number
+      },
+      headlessTask?: {
+        timeout?: number,
+        retryPolicy?: 'linear' | 'exponential' | 'none',
+        maxRetries?: number,
+        retryDelay?: number,
+        maxRetryDelay?: number
+      },
       foregroundService?: {
         channelId: string,
         channelName: string,
@@ -58,6 +80,26 @@ declare module 'react-native-callkeep' {
   export type DidDisplayIncomingCallPayload = string | undefined;
   export type DidPerformSetMutedCallActionPayload = boolean;
 
+  export type ActiveCall = {
+    callUUID: string,
+    handle: string,
+    name: string,
+    state: 'initializing' | 'new' | 'ringing' | 'dialing' | 'active' | 'holding' | 'disconnected' | 'unknown',
+    hold: boolean,
+    muted: boolean,
+    audioRoute: string,
+    createdAt: number,
+    updatedAt: number,
+    version: number
+  };
+
+  export type ActiveCalls = {
+    version: number,
+    full: boolean,
+    calls: ActiveCall[],
+    removed: string[]
+  };
+
   export const CONSTANTS: {
     END_CALL_REASONS: {
       FAILED: 1,
@@ -199,6 +241,53 @@ declare module 'react-native-callkeep' {
 
     static setCurrentCallActive(callUUID: string): void
 
+    /**
+     * @description setConferenceable method is available only on Android.
+     */
+    static setConferenceable(callUUID: string, conferenceable: boolean): void
+
     static backToForeground(): void
+
+    /**
+     * @description getDiagnostics method is available only on Android.
+     */
+    static getDiagnostics(): Promise<object>
+
+    /**
+     * @description getCallMetrics method is available only on Android.
+     */
+    static getCallMetrics(): Promise<object>
+
+    /**
+     * @description dumpLogs method is available only on Android.
+     */
+    static dumpLogs(): Promise<Array<{ time: number, level: string, message: string }>>
+
+    /**
+     * @description exportFlightRecorder method is available only on Android.
+     */
+    static exportFlightRecorder(format?: 'perfetto' | 'binary'): Promise<string>
+
+    /**
+     * @description getActiveCalls method is available only on Android.
+     */
+    static getActiveCalls(sinceVersion?: number): Promise<ActiveCalls>
+
+    /**
+     * @description synchronous variants are available only on Android.
+     */
+    static hasPhoneAccountSync(): boolean
+
+    static hasOutgoingCallSync(): boolean | null
+
+    static hasPermissionsSync(): boolean
+
+    static isConnectionServiceAvailableSync(): boolean
+
+    static checkPhoneAccountEnabledSync(): boolean | undefined
+
+    static getAudioRoutesSync(): AudioRoute[]
+
+    static getCallStatesSync(): { [uuid: string]: 'initializing' | 'new' | 'ringing' | 'dialing' | 'active' | 'holding' | 'disconnected' | 'unknown' }
   }
 }
@@ -242,6 +242,14 @@ class RNCallKeep {
     RNCallKeepModule.setCurrentCallActive(callUUID);
   };
 
+  setConferenceable = (callUUID, conferenceable) => {
+    if (isIOS) {
+      return;
+    }
+
+    RNCallKeepModule.setConferenceable(callUUID, conferenceable);
+  };
+
   updateDisplay = (uuid, displayName, handle, options = null) => {
     if (!isIOS) {
       RNCallKeepModule.updateDisplay(uuid, displayName, handle);
@@ -347,6 +355,40 @@ class RNCallKeep {
   clearInitialEvents() {
     return RNCallKeepModule.clearInitialEvents();
   }
+
+  getDiagnostics = () =>
+    isIOS ? Promise.reject('RNCallKeep.getDiagnostics was called from unsupported OS') : RNCallKeepModule.getDiagnostics();
+
+  getCallMetrics = () =>
+    isIOS ? Promise.reject('RNCallKeep.getCallMetrics was called from unsupported OS') : RNCallKeepModule.getCallMetrics();
+
+  dumpLogs = () =>
+    isIOS ? Promise.reject('RNCallKeep.dumpLogs was called from unsupported OS') : RNCallKeepModule.dumpLogs();
+
+  exportFlightRecorder = (format = 'perfetto') =>
+    isIOS
+      ? Promise.reject('RNCallKeep.exportFlightRecorder was called from unsupported OS')
+      : RNCallKeepModule.exportFlightRecorder(format);
+
+  getActiveCalls = (sinceVersion = -1) =>
+    isIOS
+      ? Promise.reject('RNCallKeep.getActiveCalls was called from unsupported OS')
+      : RNCallKeepModule.getActiveCalls(sinceVersion);
+
+  // Synchronous reads, without a bridge round trip. Not available when debugging JS remotely.
+  hasPhoneAccountSync = () => (isIOS ? true : RNCallKeepModule.hasPhoneAccountSync());
+
+  hasOutgoingCallSync = () => (isIOS ? null : RNCallKeepModule.hasOutgoingCallSync());
+
+  hasPermissionsSync = () => (isIOS ? true : RNCallKeepModule.hasPermissionsSync());
+
+  isConnectionServiceAvailableSync = () => (isIOS ? true : RNCallKeepModule.isConnectionServiceAvailableSync());
+
+  checkPhoneAccountEnabledSync = () => (isIOS ? undefined : RNCallKeepModule.checkPhoneAccountEnabledSync());
+
+  getAudioRoutesSync = () => (isIOS ? [] : RNCallKeepModule.getAudioRoutesSync());
+
+  getCallStatesSync = () => (isIOS ? {} : RNCallKeepModule.getCallStatesSync());
 }
 
 export default new RNCallKeep();